@@ -75,6 +75,8 @@ public class MainActivity extends Activity implements
         mTextView = findViewById(R.id.text_view);
 
         mToolTipsManager = new ToolTipsManager(this);
+        // the root is a RelativeLayout, keep tips from measuring it again
+        mToolTipsManager.setIsolatedLayout(true);
 
         mAboveBtn = findViewById(R.id.button_above);
         mBelowBtn = findViewById(R.id.button_below);
@@ -0,0 +1,57 @@
+/*
+Copyright 2016 Tomer Goldstein
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package com.tomergoldst.tooltips.benchmark;
+
+import com.tomergoldst.tooltips.core.BackgroundSelector;
+import com.tomergoldst.tooltips.core.PlacementEngine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background selection over every position, align, arrow and direction combination.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BackgroundSelectionBenchmark {
+
+    private static final int[] POSITIONS = {
+            PlacementEngine.POSITION_ABOVE, PlacementEngine.POSITION_BELOW,
+            PlacementEngine.POSITION_LEFT_TO, PlacementEngine.POSITION_RIGHT_TO};
+    private static final int[] ALIGNS = {
+            PlacementEngine.ALIGN_CENTER, PlacementEngine.ALIGN_LEFT, PlacementEngine.ALIGN_RIGHT};
+
+    @Benchmark
+    public int selectAll() {
+        int sum = 0;
+        for (int position : POSITIONS) {
+            for (int align : ALIGNS) {
+                sum += BackgroundSelector.select(position, align, true, false);
+                sum += BackgroundSelector.select(position, align, true, true);
+                sum += BackgroundSelector.select(position, align, false, false);
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+Copyright 2016 Tomer Goldstein
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package com.tomergoldst.tooltips.benchmark;
+
+import com.tomergoldst.tooltips.core.Placement;
+import com.tomergoldst.tooltips.core.PlacementEngine;
+import com.tomergoldst.tooltips.core.PlacementSpec;
+import com.tomergoldst.tooltips.core.TipMeasurer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coordinates and clamping for every position and align, with a tip that fits and one
+ * that has to be narrowed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PlacementBenchmark {
+
+    @Param({"0", "1", "3", "4"})
+    public int position;
+
+    @Param({"0", "1", "2"})
+    public int align;
+
+    @Param({"false", "true"})
+    public boolean clamped;
+
+    private final PlacementSpec mSpec = new PlacementSpec();
+    private final Placement mPlacement = new Placement();
+    private final TipMeasurer mMeasurer = new TipMeasurer() {
+        @Override
+        public int measureHeight(int width) {
+            // roughly what wrapping a message to a narrower width does
+            return 48 * 1080 / Math.max(width, 1);
+        }
+    };
+
+    private int mTipWidth;
+
+    @Setup
+    public void setUp() {
+        // a 1080p screen with a small anchor close to the start edge
+        mSpec.setRoot(0, 0, 1080, 1920)
+                .setRootPadding(48, 48, 48, 48)
+                .setAnchor(96, 900, 296, 1000)
+                .setPosition(position, align);
+        mTipWidth = clamped ? 1200 : 300;
+    }
+
+    @Benchmark
+    public int place() {
+        PlacementEngine.place(mSpec, mTipWidth, 48, mMeasurer, mPlacement);
+        return mPlacement.x + mPlacement.y + mPlacement.width;
+    }
+}
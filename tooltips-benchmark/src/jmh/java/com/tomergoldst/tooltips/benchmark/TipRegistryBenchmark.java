@@ -0,0 +1,135 @@
+/*
+Copyright 2016 Tomer Goldstein
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package com.tomergoldst.tooltips.benchmark;
+
+import com.tomergoldst.tooltips.core.TipRegistry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registry work done by ToolTipsManager show, find, dismiss and dismissAll with
+ * a given number of live tips.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TipRegistryBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int liveTips;
+
+    private TipRegistry<Object, Object> mRegistry;
+    private Object[] mAnchors;
+    private Object[] mTips;
+    private int mNext;
+    private int mDismissed;
+
+    private final TipRegistry.Visitor<Object> mDismissVisitor = new TipRegistry.Visitor<Object>() {
+        @Override
+        public void visit(Object tip) {
+            mRegistry.remove(tip);
+            mDismissed++;
+        }
+    };
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        mRegistry = new TipRegistry<>();
+        mAnchors = new Object[liveTips];
+        mTips = new Object[liveTips];
+        for (int i = 0; i < liveTips; i++) {
+            mAnchors[i] = new Object();
+            mTips[i] = new Object();
+            show(i);
+        }
+    }
+
+    private void show(int i) {
+        mRegistry.add(mAnchors[i], anchorId(i), mTips[i], group(i));
+    }
+
+    private static int anchorId(int i) {
+        // view ids are generated, keep them spread like real ones
+        return 0x7f0a0000 + i * 31;
+    }
+
+    private static Object group(int i) {
+        return (i & 1) == 0 ? "even" : "odd";
+    }
+
+    private int nextIndex() {
+        mNext = mNext + 1 == liveTips ? 0 : mNext + 1;
+        return mNext;
+    }
+
+    @Benchmark
+    public Object find() {
+        return mRegistry.find(mAnchors[nextIndex()]);
+    }
+
+    @Benchmark
+    public Object anchorOf() {
+        return mRegistry.getAnchor(mTips[nextIndex()]);
+    }
+
+    /**
+     * Dismiss a tip and show it again, so the registry size stays put
+     */
+    @Benchmark
+    public boolean dismissAndShow() {
+        int i = nextIndex();
+        boolean removed = mRegistry.remove(mTips[i]);
+        show(i);
+        return removed;
+    }
+
+    /**
+     * Dismiss every tip, then show them all again
+     */
+    @Benchmark
+    public int dismissAll() {
+        mDismissed = 0;
+        mRegistry.forEach(mDismissVisitor);
+        for (int i = 0; i < liveTips; i++) {
+            show(i);
+        }
+        return mDismissed;
+    }
+
+    /**
+     * Dismiss half of the tips by group, then show them again
+     */
+    @Benchmark
+    public int dismissGroup() {
+        mDismissed = 0;
+        mRegistry.forEachInGroup("odd", mDismissVisitor);
+        for (int i = 1; i < liveTips; i += 2) {
+            show(i);
+        }
+        return mDismissed;
+    }
+}
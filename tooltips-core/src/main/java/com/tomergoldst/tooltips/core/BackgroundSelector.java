@@ -0,0 +1,78 @@
+/*
+Copyright 2016 Tomer Goldstein
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package com.tomergoldst.tooltips.core;
+
+/**
+ * Picks which arrow a tip background needs for its position and alignment.
+ */
+public final class BackgroundSelector {
+
+    // One value per bundled background
+    public static final int NO_ARROW = 0;
+    public static final int ARROW_DOWN = 1;
+    public static final int ARROW_DOWN_LEFT = 2;
+    public static final int ARROW_DOWN_RIGHT = 3;
+    public static final int ARROW_UP = 4;
+    public static final int ARROW_UP_LEFT = 5;
+    public static final int ARROW_UP_RIGHT = 6;
+    public static final int ARROW_LEFT = 7;
+    public static final int ARROW_RIGHT = 8;
+
+    public static final int ARROW_COUNT = 9;
+
+    private BackgroundSelector() {
+    }
+
+    /**
+     * @param position one of the {@link PlacementEngine} POSITION_* values
+     * @param align one of the {@link PlacementEngine} ALIGN_* values
+     * @param withArrow false to get the background without an arrow
+     * @param rtl true to mirror start / end aligned arrows and side arrows
+     * @return one of the ARROW_* values, or NO_ARROW
+     */
+    public static int select(int position, int align, boolean withArrow, boolean rtl) {
+        // show tool tip without arrow. no need to continue
+        if (!withArrow) {
+            return NO_ARROW;
+        }
+
+        switch (position) {
+            case PlacementEngine.POSITION_ABOVE:
+                return selectAligned(align, rtl, ARROW_DOWN, ARROW_DOWN_LEFT, ARROW_DOWN_RIGHT);
+            case PlacementEngine.POSITION_BELOW:
+                return selectAligned(align, rtl, ARROW_UP, ARROW_UP_LEFT, ARROW_UP_RIGHT);
+            case PlacementEngine.POSITION_LEFT_TO:
+                return !rtl ? ARROW_RIGHT : ARROW_LEFT;
+            case PlacementEngine.POSITION_RIGHT_TO:
+                return !rtl ? ARROW_LEFT : ARROW_RIGHT;
+            default:
+                return NO_ARROW;
+        }
+    }
+
+    private static int selectAligned(int align, boolean rtl, int center, int left, int right) {
+        switch (align) {
+            case PlacementEngine.ALIGN_LEFT:
+                return !rtl ? left : right;
+            case PlacementEngine.ALIGN_RIGHT:
+                return !rtl ? right : left;
+            case PlacementEngine.ALIGN_CENTER:
+            default:
+                return center;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+/*
+Copyright 2016 Tomer Goldstein
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package com.tomergoldst.tooltips.core;
+
+/**
+ * Moves apart tips which were each placed next to their anchor without regard to the others.
+ * Tips are taken in the order they were added and earlier tips keep their place. A tip which
+ * overlaps an earlier one moves to the first of its alternate positions which is free, else it
+ * slides along its free axis past the tips in its way: sideways for a tip above or below its
+ * anchor, up or down for a tip beside it. A tip which cannot be moved clear keeps its place.
+ * Overlaps are looked up in a {@link TipGrid} of the tips resolved so far, so a pass costs a
+ * few grid lookups per tip. Arrays are kept between passes, so passes stop allocating once
+ * they have grown.
+ */
+public final class CollisionResolver {
+
+    /** A tip above or below its anchor slides left or right */
+    public static final int AXIS_HORIZONTAL = 0;
+    /** A tip left or right to its anchor slides up or down */
+    public static final int AXIS_VERTICAL = 1;
+
+    /** Position of a tip which was not moved to one of its alternate positions */
+    public static final int NO_POSITION = -1;
+
+    // a tip slides past at most this many tips in each direction before giving up
+    private static final int MAX_SLIDES = 8;
+
+    private static final class Slot {
+        int left;
+        int top;
+        int width;
+        int height;
+        int axis;
+        int position;
+        boolean moved;
+        int firstAlternative;
+        int alternativeCount;
+    }
+
+    private final TipGrid<Slot> mResolved;
+    private Slot[] mSlots = new Slot[0];
+    private int mCount;
+
+    // alternate positions of all tips, each tip's in a run from its firstAlternative
+    private int[] mAlternativePositions = new int[0];
+    private int[] mAlternativeLefts = new int[0];
+    private int[] mAlternativeTops = new int[0];
+    private int mAlternativeCount;
+
+    private int mAreaLeft;
+    private int mAreaTop;
+    private int mAreaRight;
+    private int mAreaBottom;
+
+    public CollisionResolver(int cellSize) {
+        mResolved = new TipGrid<>(cellSize);
+    }
+
+    /**
+     * Start a pass, dropping the tips of the previous one
+     *
+     * @param left left of the area tips have to stay in, from 0
+     * @param top top of the area tips have to stay in, from 0
+     */
+    public void begin(int left, int top, int right, int bottom) {
+        mAreaLeft = left;
+        mAreaTop = top;
+        mAreaRight = right;
+        mAreaBottom = bottom;
+        mCount = 0;
+        mAlternativeCount = 0;
+        mResolved.clear();
+        mResolved.setSize(right, bottom);
+    }
+
+    /**
+     * Add a tip where it was placed. Tips added first keep their place.
+     *
+     * @param freeAxis {@link #AXIS_HORIZONTAL} or {@link #AXIS_VERTICAL}
+     * @return index of the tip in this pass
+     */
+    public int addTip(int left, int top, int width, int height, int freeAxis) {
+        if (mCount == mSlots.length) {
+            Slot[] slots = new Slot[Math.max(8, mCount * 2)];
+            System.arraycopy(mSlots, 0, slots, 0, mCount);
+            mSlots = slots;
+        }
+        Slot slot = mSlots[mCount];
+        if (slot == null) {
+            slot = mSlots[mCount] = new Slot();
+        }
+        slot.left = left;
+        slot.top = top;
+        slot.width = width;
+        slot.height = height;
+        slot.axis = freeAxis;
+        slot.position = NO_POSITION;
+        slot.moved = false;
+        slot.firstAlternative = mAlternativeCount;
+        slot.alternativeCount = 0;
+        return mCount++;
+    }
+
+    /**
+     * Add a position the last added tip may move to, in order of preference.
+     * The tip keeps its size there.
+     *
+     * @param position caller defined value reported by {@link #getPosition(int)}
+     */
+    public void addAlternative(int position, int left, int top) {
+        if (mCount == 0) {
+            throw new IllegalStateException("no tip to add an alternative to");
+        }
+        if (mAlternativeCount == mAlternativePositions.length) {
+            int capacity = Math.max(8, mAlternativeCount * 2);
+            mAlternativePositions = grow(mAlternativePositions, capacity);
+            mAlternativeLefts = grow(mAlternativeLefts, capacity);
+            mAlternativeTops = grow(mAlternativeTops, capacity);
+        }
+        mAlternativePositions[mAlternativeCount] = position;
+        mAlternativeLefts[mAlternativeCount] = left;
+        mAlternativeTops[mAlternativeCount] = top;
+        mAlternativeCount++;
+        mSlots[mCount - 1].alternativeCount++;
+    }
+
+    public int size() {
+        return mCount;
+    }
+
+    /**
+     * Resolve the overlaps of the tips added since {@link #begin}
+     */
+    public void resolve() {
+        for (int i = 0; i < mCount; i++) {
+            Slot slot = mSlots[i];
+            if (findOverlap(slot.left, slot.top, slot) != null) {
+                if (!moveToAlternative(slot)) {
+                    slide(slot);
+                }
+            }
+            mResolved.put(slot, slot.left, slot.top, slot.left + slot.width, slot.top + slot.height);
+        }
+    }
+
+    /**
+     * @return true if the tip was moved by the last {@link #resolve()}
+     */
+    public boolean isMoved(int index) {
+        return mSlots[index].moved;
+    }
+
+    public int getLeft(int index) {
+        return mSlots[index].left;
+    }
+
+    public int getTop(int index) {
+        return mSlots[index].top;
+    }
+
+    /**
+     * @return the alternate position the tip moved to, or {@link #NO_POSITION}
+     */
+    public int getPosition(int index) {
+        return mSlots[index].position;
+    }
+
+    private boolean moveToAlternative(Slot slot) {
+        for (int i = slot.firstAlternative, end = i + slot.alternativeCount; i < end; i++) {
+            int left = mAlternativeLefts[i];
+            int top = mAlternativeTops[i];
+            if (isInArea(left, top, slot) && findOverlap(left, top, slot) == null) {
+                slot.left = left;
+                slot.top = top;
+                slot.position = mAlternativePositions[i];
+                slot.moved = true;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Slide the tip past the tips in its way, towards the nearer side of the first one
+     * and then the other way
+     */
+    private void slide(Slot slot) {
+        Slot first = findOverlap(slot.left, slot.top, slot);
+        boolean horizontal = slot.axis == AXIS_HORIZONTAL;
+        int start = horizontal ? slot.left : slot.top;
+        int size = horizontal ? slot.width : slot.height;
+        int firstStart = horizontal ? first.left : first.top;
+        int firstEnd = firstStart + (horizontal ? first.width : first.height);
+        boolean forward = firstEnd - start < start + size - firstStart;
+
+        if (!slide(slot, forward)) {
+            slide(slot, !forward);
+        }
+    }
+
+    private boolean slide(Slot slot, boolean forward) {
+        boolean horizontal = slot.axis == AXIS_HORIZONTAL;
+        int left = slot.left;
+        int top = slot.top;
+        for (int i = 0; i < MAX_SLIDES; i++) {
+            Slot other = findOverlap(left, top, slot);
+            if (other == null) {
+                slot.left = left;
+                slot.top = top;
+                slot.moved = true;
+                return true;
+            }
+            if (horizontal) {
+                left = forward ? other.left + other.width : other.left - slot.width;
+            } else {
+                top = forward ? other.top + other.height : other.top - slot.height;
+            }
+            if (!isInArea(left, top, slot)) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private Slot findOverlap(int left, int top, Slot slot) {
+        return mResolved.findIntersecting(left, top, left + slot.width, top + slot.height);
+    }
+
+    private boolean isInArea(int left, int top, Slot slot) {
+        return left >= mAreaLeft && left + slot.width <= mAreaRight
+                && top >= mAreaTop && top + slot.height <= mAreaBottom;
+    }
+
+    private static int[] grow(int[] array, int capacity) {
+        int[] grown = new int[capacity];
+        System.arraycopy(array, 0, grown, 0, array.length);
+        return grown;
+    }
+}
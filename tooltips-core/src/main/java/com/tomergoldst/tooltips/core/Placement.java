@@ -0,0 +1,45 @@
+/*
+Copyright 2016 Tomer Goldstein
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package com.tomergoldst.tooltips.core;
+
+/**
+ * Result of a tip placement, filled by {@link PlacementEngine}.
+ */
+public final class Placement {
+
+    /**
+     * Left of the tip in the spec coordinates, less the root left padding since the tip
+     * is laid out inside that padding
+     */
+    public int x;
+    /**
+     * Top of the tip in the spec coordinates, less the root top padding
+     */
+    public int y;
+    public int width;
+    public int height;
+    /** True if the tip did not fit and has to be laid out with exactly {@link #width} */
+    public boolean widthConstrained;
+
+    void reset(int width, int height) {
+        x = 0;
+        y = 0;
+        this.width = width;
+        this.height = height;
+        widthConstrained = false;
+    }
+}
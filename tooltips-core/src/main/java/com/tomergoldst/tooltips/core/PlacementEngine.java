@@ -0,0 +1,262 @@
+/*
+Copyright 2016 Tomer Goldstein
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package com.tomergoldst.tooltips.core;
+
+/**
+ * Finds where a tip goes relative to its anchor, narrowing it when it would leave the root.
+ * Works on plain int rectangles and never allocates, so it can place many tips per frame.
+ */
+public final class PlacementEngine {
+
+    // Same values as the ToolTip POSITION_* and ALIGN_* constants
+    public static final int POSITION_ABOVE = 0;
+    public static final int POSITION_BELOW = 1;
+    public static final int POSITION_LEFT_TO = 3;
+    public static final int POSITION_RIGHT_TO = 4;
+    public static final int POSITION_AUTO = 5;
+
+    public static final int ALIGN_CENTER = 0;
+    public static final int ALIGN_LEFT = 1;
+    public static final int ALIGN_RIGHT = 2;
+
+    private PlacementEngine() {
+    }
+
+    /**
+     * Place a tip.
+     *
+     * @param spec anchor, root and tip configuration
+     * @param tipWidth measured width of the tip
+     * @param tipHeight measured height of the tip
+     * @param measurer used to measure the tip again if it has to be narrowed
+     * @param out receives the tip position and size
+     */
+    public static void place(PlacementSpec spec, int tipWidth, int tipHeight,
+                             TipMeasurer measurer, Placement out) {
+        out.reset(tipWidth, tipHeight);
+
+        switch (spec.position) {
+            case POSITION_ABOVE:
+                placeHorizontally(spec, measurer, out);
+                out.y = spec.anchorTop - out.height;
+                break;
+            case POSITION_BELOW:
+                placeHorizontally(spec, measurer, out);
+                out.y = spec.anchorBottom;
+                break;
+            case POSITION_LEFT_TO:
+                out.x = spec.anchorLeft - out.width;
+                adjustLeftToOutOfBounds(spec, measurer, out);
+                out.y = spec.anchorTop + getYCenteringOffset(spec, out);
+                break;
+            case POSITION_RIGHT_TO:
+                out.x = spec.anchorRight;
+                adjustRightToOutOfBounds(spec, measurer, out);
+                out.y = spec.anchorTop + getYCenteringOffset(spec, out);
+                break;
+        }
+
+        // add user defined offset values
+        out.x += spec.rtl ? -spec.offsetX : spec.offsetX;
+        out.y += spec.offsetY;
+
+        // the tip is laid out inside the root padding, take it off so that
+        // translating the tip by these coordinates lands on the spot found
+        out.x -= spec.rootPaddingLeft;
+        out.y -= spec.rootPaddingTop;
+    }
+
+    /**
+     * Pick the first candidate position where a tip of the given size fits in the root
+     * without being narrowed or moved, so a single measurement scores every side.
+     *
+     * @param spec anchor, root and tip configuration. Its position is not used
+     * @param candidates POSITION_* values in order of preference
+     * @return the first candidate that fits, or the first candidate if none does
+     */
+    public static int selectPosition(PlacementSpec spec, int[] candidates, int tipWidth, int tipHeight) {
+        for (int candidate : candidates) {
+            if (fits(spec, candidate, tipWidth, tipHeight)) {
+                return candidate;
+            }
+        }
+        return candidates[0];
+    }
+
+    /**
+     * Place a tip of the given size at a position, without narrowing it or moving it into
+     * the root, e.g. to try another side for a tip which overlaps other tips.
+     *
+     * @param spec anchor, root and tip configuration. Its position is not used
+     * @param position POSITION_* value to place the tip at
+     * @param out receives the tip position and size, like {@link #place}
+     * @return true if the tip fits in the root at that position
+     */
+    public static boolean placeAt(PlacementSpec spec, int position, int tipWidth, int tipHeight,
+                                  Placement out) {
+        out.reset(tipWidth, tipHeight);
+        if (!isSidePosition(position)) {
+            return false;
+        }
+        int x = getCandidateX(spec, position, tipWidth);
+        int y = getCandidateY(spec, position, tipHeight);
+        out.x = x - spec.rootPaddingLeft;
+        out.y = y - spec.rootPaddingTop;
+        return fitsAt(spec, x, y, tipWidth, tipHeight);
+    }
+
+    private static boolean fits(PlacementSpec spec, int position, int tipWidth, int tipHeight) {
+        return isSidePosition(position) && fitsAt(spec, getCandidateX(spec, position, tipWidth),
+                getCandidateY(spec, position, tipHeight), tipWidth, tipHeight);
+    }
+
+    private static boolean isSidePosition(int position) {
+        return position == POSITION_ABOVE || position == POSITION_BELOW
+                || position == POSITION_LEFT_TO || position == POSITION_RIGHT_TO;
+    }
+
+    private static boolean fitsAt(PlacementSpec spec, int x, int y, int tipWidth, int tipHeight) {
+        return x >= spec.contentLeft() && x + tipWidth <= spec.contentRight()
+                && y >= spec.contentTop() && y + tipHeight <= spec.contentBottom();
+    }
+
+    /**
+     * @return left of an unconstrained tip at a position, with the user offset
+     */
+    private static int getCandidateX(PlacementSpec spec, int position, int tipWidth) {
+        int x;
+        switch (position) {
+            case POSITION_LEFT_TO:
+                x = spec.anchorLeft - tipWidth;
+                break;
+            case POSITION_RIGHT_TO:
+                x = spec.anchorRight;
+                break;
+            default:
+                x = spec.anchorLeft + getXOffset(spec, tipWidth);
+                break;
+        }
+        return x + (spec.rtl ? -spec.offsetX : spec.offsetX);
+    }
+
+    /**
+     * @return top of an unconstrained tip at a position, with the user offset
+     */
+    private static int getCandidateY(PlacementSpec spec, int position, int tipHeight) {
+        int y;
+        switch (position) {
+            case POSITION_ABOVE:
+                y = spec.anchorTop - tipHeight;
+                break;
+            case POSITION_BELOW:
+                y = spec.anchorBottom;
+                break;
+            default:
+                y = spec.anchorTop + (spec.anchorHeight() - tipHeight) / 2;
+                break;
+        }
+        return y + spec.offsetY;
+    }
+
+    private static void placeHorizontally(PlacementSpec spec, TipMeasurer measurer, Placement out) {
+        out.x = spec.anchorLeft + getXOffset(spec, out.width);
+        switch (spec.align) {
+            case ALIGN_CENTER:
+                adjustHorizontalCenteredOutOfBounds(spec, measurer, out);
+                break;
+            case ALIGN_LEFT:
+                adjustHorizontalLeftAlignmentOutOfBounds(spec, measurer, out);
+                break;
+            case ALIGN_RIGHT:
+                adjustHorizontalRightAlignmentOutOfBounds(spec, measurer, out);
+                break;
+        }
+    }
+
+    private static void adjustRightToOutOfBounds(PlacementSpec spec, TipMeasurer measurer, Placement out) {
+        int rootRight = spec.contentRight();
+        if (out.x + out.width > rootRight) {
+            constrainWidth(rootRight - spec.anchorRight, measurer, out);
+        }
+    }
+
+    private static void adjustLeftToOutOfBounds(PlacementSpec spec, TipMeasurer measurer, Placement out) {
+        int rootLeft = spec.contentLeft();
+        if (out.x < rootLeft) {
+            out.x = rootLeft;
+            constrainWidth(spec.anchorLeft - rootLeft, measurer, out);
+        }
+    }
+
+    private static void adjustHorizontalRightAlignmentOutOfBounds(PlacementSpec spec, TipMeasurer measurer,
+                                                                  Placement out) {
+        int rootLeft = spec.contentLeft();
+        if (out.x < rootLeft) {
+            out.x = rootLeft;
+            constrainWidth(spec.anchorRight - rootLeft, measurer, out);
+        }
+    }
+
+    private static void adjustHorizontalLeftAlignmentOutOfBounds(PlacementSpec spec, TipMeasurer measurer,
+                                                                 Placement out) {
+        int rootRight = spec.contentRight();
+        if (out.x + out.width > rootRight) {
+            constrainWidth(rootRight - spec.anchorLeft, measurer, out);
+        }
+    }
+
+    private static void adjustHorizontalCenteredOutOfBounds(PlacementSpec spec, TipMeasurer measurer,
+                                                            Placement out) {
+        int rootWidth = spec.contentRight() - spec.contentLeft();
+        if (out.width > rootWidth) {
+            out.x = spec.contentLeft();
+            constrainWidth(rootWidth, measurer, out);
+        }
+    }
+
+    private static void constrainWidth(int width, TipMeasurer measurer, Placement out) {
+        out.width = width;
+        out.height = measurer.measureHeight(width);
+        out.widthConstrained = true;
+    }
+
+    /**
+     * calculate the amount of movement need to be taken inorder to align tip
+     * on X axis according to "align" parameter
+     * @return int
+     */
+    private static int getXOffset(PlacementSpec spec, int tipWidth) {
+        switch (spec.align) {
+            case ALIGN_CENTER:
+                return (spec.anchorWidth() - tipWidth) / 2;
+            case ALIGN_RIGHT:
+                return spec.anchorWidth() - tipWidth;
+            case ALIGN_LEFT:
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * calculate the amount of movement need to be taken inorder to center tip
+     * on Y axis
+     * @return int
+     */
+    private static int getYCenteringOffset(PlacementSpec spec, Placement out) {
+        return (spec.anchorHeight() - out.height) / 2;
+    }
+}
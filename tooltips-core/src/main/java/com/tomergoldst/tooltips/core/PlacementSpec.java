@@ -0,0 +1,114 @@
+/*
+Copyright 2016 Tomer Goldstein
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package com.tomergoldst.tooltips.core;
+
+/**
+ * Input of a tip placement. All rectangles are in the same coordinate space, usually screen
+ * coordinates. Instances are mutable so a caller can keep one and refill it for every tip.
+ */
+public final class PlacementSpec {
+
+    public int anchorLeft;
+    public int anchorTop;
+    public int anchorRight;
+    public int anchorBottom;
+
+    public int rootLeft;
+    public int rootTop;
+    public int rootRight;
+    public int rootBottom;
+
+    public int rootPaddingLeft;
+    public int rootPaddingTop;
+    public int rootPaddingRight;
+    public int rootPaddingBottom;
+
+    public int position;
+    public int align;
+    public int offsetX;
+    public int offsetY;
+    public boolean rtl;
+
+    public PlacementSpec setAnchor(int left, int top, int right, int bottom) {
+        anchorLeft = left;
+        anchorTop = top;
+        anchorRight = right;
+        anchorBottom = bottom;
+        return this;
+    }
+
+    public PlacementSpec setRoot(int left, int top, int right, int bottom) {
+        rootLeft = left;
+        rootTop = top;
+        rootRight = right;
+        rootBottom = bottom;
+        return this;
+    }
+
+    public PlacementSpec setRootPadding(int left, int top, int right, int bottom) {
+        rootPaddingLeft = left;
+        rootPaddingTop = top;
+        rootPaddingRight = right;
+        rootPaddingBottom = bottom;
+        return this;
+    }
+
+    /**
+     * @param position one of the {@link PlacementEngine} POSITION_* values
+     * @param align one of the {@link PlacementEngine} ALIGN_* values
+     */
+    public PlacementSpec setPosition(int position, int align) {
+        this.position = position;
+        this.align = align;
+        return this;
+    }
+
+    public PlacementSpec setOffset(int offsetX, int offsetY) {
+        this.offsetX = offsetX;
+        this.offsetY = offsetY;
+        return this;
+    }
+
+    public PlacementSpec setRtl(boolean rtl) {
+        this.rtl = rtl;
+        return this;
+    }
+
+    int anchorWidth() {
+        return anchorRight - anchorLeft;
+    }
+
+    int anchorHeight() {
+        return anchorBottom - anchorTop;
+    }
+
+    int contentLeft() {
+        return rootLeft + rootPaddingLeft;
+    }
+
+    int contentRight() {
+        return rootRight - rootPaddingRight;
+    }
+
+    int contentTop() {
+        return rootTop + rootPaddingTop;
+    }
+
+    int contentBottom() {
+        return rootBottom - rootPaddingBottom;
+    }
+}
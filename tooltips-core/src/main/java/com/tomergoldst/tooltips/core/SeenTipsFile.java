@@ -0,0 +1,248 @@
+/*
+Copyright 2016 Tomer Goldstein
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package com.tomergoldst.tooltips.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Set of 64 bit key hashes kept in a memory-mapped file, an open addressing hash table
+ * stored as is. Opening maps the file without reading it, a lookup probes a few slots of
+ * the mapping. Thread-safe: adds take a lock, lookups take none so they never wait for a
+ * write to disk. An add writes its slot and then publishes it through a volatile count, a
+ * grown table is published once fully built. A lookup racing an add may read the slot half
+ * written, which is why keys never have a zero half: a half written key is neither empty
+ * nor equal to another key.
+ * <p>
+ * Layout: magic, version, capacity and count as ints, then capacity longs, 0 for an empty slot.
+ */
+public final class SeenTipsFile {
+
+    private static final int MAGIC = 0x54495053; // "TIPS"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int COUNT_OFFSET = 12;
+    private static final int MIN_CAPACITY = 1024;
+
+    private static final Syncer FORCE = new Syncer() {
+        @Override
+        public void force(MappedByteBuffer table) {
+            table.force();
+        }
+    };
+
+    /**
+     * Writes a mapping to disk
+     */
+    interface Syncer {
+        void force(MappedByteBuffer table);
+    }
+
+    private final File mFile;
+    // replaced as a whole when the table grows, written under the lock
+    private volatile MappedByteBuffer mTable;
+    private int mCapacity;
+    // written after the slot of each added key, so a lookup reading it sees the slot
+    private volatile int mCount;
+    private boolean mDirty;
+    // replaced by tests
+    Syncer mSyncer = FORCE;
+
+    private SeenTipsFile(File file) {
+        mFile = file;
+    }
+
+    /**
+     * Map the file, creating it if needed. A file which is not a seen tips file is started over.
+     */
+    public static SeenTipsFile open(File file) throws IOException {
+        SeenTipsFile seenTipsFile = new SeenTipsFile(file);
+        seenTipsFile.map();
+        return seenTipsFile;
+    }
+
+    /**
+     * @return a hash of the key to store, neither of its 32 bit halves is 0
+     */
+    public static long hash(CharSequence key) {
+        // 64 bit FNV-1a
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        if ((hash & 0xffffffffL) == 0) {
+            hash |= 1;
+        }
+        if ((hash >>> 32) == 0) {
+            hash |= 1L << 32;
+        }
+        return hash;
+    }
+
+    public boolean contains(long key) {
+        // reading the count first makes the slots of all keys added before visible
+        if (mCount == 0) {
+            return false;
+        }
+        MappedByteBuffer table = mTable;
+        int mask = (table.capacity() - HEADER_SIZE) / 8 - 1;
+        for (int i = index(key, mask); ; i = (i + 1) & mask) {
+            long slot = table.getLong(HEADER_SIZE + i * 8);
+            if (slot == key) {
+                return true;
+            }
+            if (slot == 0) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Add a key, written to the mapping right away and to disk by {@link #flush()}
+     *
+     * @return true if the key was not in the set
+     */
+    public synchronized boolean add(long key) throws IOException {
+        if ((key & 0xffffffffL) == 0 || (key >>> 32) == 0) {
+            throw new IllegalArgumentException(key + " is not a valid key, use hash()");
+        }
+        if (contains(key)) {
+            return false;
+        }
+        // keep at most half of the slots used, so probes stay short
+        if ((mCount + 1) * 2 > mCapacity) {
+            grow();
+        }
+        MappedByteBuffer table = mTable;
+        put(table, mCapacity - 1, key);
+        table.putInt(COUNT_OFFSET, mCount + 1);
+        mCount++;
+        mDirty = true;
+        return true;
+    }
+
+    /**
+     * Write added keys to disk. Neither lookups nor adds wait for the write
+     */
+    public void flush() {
+        MappedByteBuffer table;
+        synchronized (this) {
+            if (!mDirty) {
+                return;
+            }
+            table = mTable;
+            mDirty = false;
+        }
+        // a table replaced meanwhile was written when it grew, keys added later mark it dirty
+        mSyncer.force(table);
+    }
+
+    public int size() {
+        return mCount;
+    }
+
+    private synchronized void map() throws IOException {
+        RandomAccessFile file = new RandomAccessFile(mFile, "rw");
+        try {
+            FileChannel channel = file.getChannel();
+            long length = channel.size();
+            MappedByteBuffer table = null;
+            if (length >= HEADER_SIZE) {
+                table = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+                if (!isValid(table, length)) {
+                    table = null;
+                }
+            }
+            if (table == null) {
+                file.setLength(0);
+                table = createTable(channel, MIN_CAPACITY);
+            }
+            mCapacity = table.getInt(8);
+            mTable = table;
+            mCount = table.getInt(COUNT_OFFSET);
+        } finally {
+            file.close();
+        }
+    }
+
+    private static boolean isValid(MappedByteBuffer table, long length) {
+        int capacity = table.getInt(8);
+        return table.getInt(0) == MAGIC && table.getInt(4) == VERSION
+                && capacity >= MIN_CAPACITY && Integer.bitCount(capacity) == 1
+                && length == HEADER_SIZE + capacity * 8L
+                && table.getInt(COUNT_OFFSET) >= 0 && table.getInt(COUNT_OFFSET) < capacity;
+    }
+
+    private static MappedByteBuffer createTable(FileChannel channel, int capacity) throws IOException {
+        // a new file region reads as zeros, all slots empty
+        MappedByteBuffer table = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                HEADER_SIZE + capacity * 8L);
+        table.putInt(0, MAGIC);
+        table.putInt(4, VERSION);
+        table.putInt(8, capacity);
+        table.putInt(COUNT_OFFSET, 0);
+        return table;
+    }
+
+    /**
+     * Rehash into a file twice the size, which then replaces the current one
+     */
+    private void grow() throws IOException {
+        int capacity = mCapacity * 2;
+        File grownFile = new File(mFile.getPath() + ".tmp");
+        RandomAccessFile file = new RandomAccessFile(grownFile, "rw");
+        MappedByteBuffer table;
+        try {
+            file.setLength(0);
+            table = createTable(file.getChannel(), capacity);
+        } finally {
+            file.close();
+        }
+
+        MappedByteBuffer oldTable = mTable;
+        for (int i = 0; i < mCapacity; i++) {
+            long key = oldTable.getLong(HEADER_SIZE + i * 8);
+            if (key != 0) {
+                put(table, capacity - 1, key);
+            }
+        }
+        table.putInt(COUNT_OFFSET, mCount);
+        mSyncer.force(table);
+        if (!grownFile.renameTo(mFile)) {
+            throw new IOException("Unable to replace " + mFile);
+        }
+        mTable = table;
+        mCapacity = capacity;
+    }
+
+    private static void put(MappedByteBuffer table, int mask, long key) {
+        int i = index(key, mask);
+        while (table.getLong(HEADER_SIZE + i * 8) != 0) {
+            i = (i + 1) & mask;
+        }
+        table.putLong(HEADER_SIZE + i * 8, key);
+    }
+
+    private static int index(long key, int mask) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+}
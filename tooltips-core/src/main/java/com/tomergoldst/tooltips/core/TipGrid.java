@@ -0,0 +1,237 @@
+/*
+Copyright 2016 Tomer Goldstein
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package com.tomergoldst.tooltips.core;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+/**
+ * Uniform grid of tip bounds for hit testing. Each tip is listed in the cells its bounds
+ * cover, so finding the tip at a point only looks at the tips of one cell, however many
+ * tips there are. Points and bounds outside the grid fall into its edge cells.
+ * Removed entries are reused, so moving tips around does not allocate.
+ *
+ * @param <T> tip type
+ */
+public final class TipGrid<T> {
+
+    public static final int DEFAULT_CELL_SIZE = 128;
+
+    private static final class Entry<T> {
+        T item;
+        int left;
+        int top;
+        int right;
+        int bottom;
+        // order the item was added in, later items are on top
+        int order;
+        // cells the entry is listed in, none if firstColumn > lastColumn
+        int firstColumn;
+        int lastColumn;
+        int firstRow;
+        int lastRow;
+        Entry<T> nextFree;
+    }
+
+    private final int mCellSize;
+    private int mColumns = 1;
+    private int mRows = 1;
+    private ArrayList<Entry<T>>[] mCells = newCells(1);
+    private final IdentityHashMap<T, Entry<T>> mEntries = new IdentityHashMap<>();
+    private Entry<T> mFreeEntries;
+    private int mNextOrder;
+
+    public TipGrid(int cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("cell size must be positive");
+        }
+        mCellSize = cellSize;
+    }
+
+    /**
+     * Set the area the grid covers, from 0, 0
+     */
+    public void setSize(int width, int height) {
+        int columns = Math.max(1, (width + mCellSize - 1) / mCellSize);
+        int rows = Math.max(1, (height + mCellSize - 1) / mCellSize);
+        if (columns == mColumns && rows == mRows) {
+            return;
+        }
+        mColumns = columns;
+        mRows = rows;
+        mCells = newCells(columns * rows);
+        for (Entry<T> entry : mEntries.values()) {
+            list(entry);
+        }
+    }
+
+    /**
+     * Add a tip, or move it if it was added before. A moved tip keeps its place in the order.
+     */
+    public void put(T item, int left, int top, int right, int bottom) {
+        Entry<T> entry = mEntries.get(item);
+        if (entry == null) {
+            entry = obtainEntry();
+            entry.item = item;
+            entry.order = mNextOrder++;
+            mEntries.put(item, entry);
+        } else if (entry.left == left && entry.top == top
+                && entry.right == right && entry.bottom == bottom) {
+            return;
+        } else {
+            unlist(entry);
+        }
+        entry.left = left;
+        entry.top = top;
+        entry.right = right;
+        entry.bottom = bottom;
+        list(entry);
+    }
+
+    public boolean remove(T item) {
+        Entry<T> entry = mEntries.remove(item);
+        if (entry == null) {
+            return false;
+        }
+        unlist(entry);
+        entry.item = null;
+        entry.nextFree = mFreeEntries;
+        mFreeEntries = entry;
+        return true;
+    }
+
+    /**
+     * @return the topmost tip whose bounds contain the point, or null
+     */
+    public T find(int x, int y) {
+        ArrayList<Entry<T>> cell = mCells[row(y) * mColumns + column(x)];
+        if (cell == null) {
+            return null;
+        }
+        Entry<T> found = null;
+        for (int i = 0, size = cell.size(); i < size; i++) {
+            Entry<T> entry = cell.get(i);
+            if (x >= entry.left && x < entry.right && y >= entry.top && y < entry.bottom
+                    && (found == null || entry.order > found.order)) {
+                found = entry;
+            }
+        }
+        return found != null ? found.item : null;
+    }
+
+    /**
+     * @return the topmost tip whose bounds intersect the rectangle, or null
+     */
+    public T findIntersecting(int left, int top, int right, int bottom) {
+        if (right <= left || bottom <= top) {
+            return null;
+        }
+        Entry<T> found = null;
+        for (int row = row(top), lastRow = row(bottom - 1); row <= lastRow; row++) {
+            for (int column = column(left), lastColumn = column(right - 1); column <= lastColumn; column++) {
+                ArrayList<Entry<T>> cell = mCells[row * mColumns + column];
+                if (cell == null) {
+                    continue;
+                }
+                for (int i = 0, size = cell.size(); i < size; i++) {
+                    Entry<T> entry = cell.get(i);
+                    if (left < entry.right && entry.left < right && top < entry.bottom && entry.top < bottom
+                            && (found == null || entry.order > found.order)) {
+                        found = entry;
+                    }
+                }
+            }
+        }
+        return found != null ? found.item : null;
+    }
+
+    public boolean contains(T item) {
+        return mEntries.containsKey(item);
+    }
+
+    public int size() {
+        return mEntries.size();
+    }
+
+    public void clear() {
+        for (Entry<T> entry : mEntries.values()) {
+            entry.item = null;
+            entry.nextFree = mFreeEntries;
+            mFreeEntries = entry;
+        }
+        mEntries.clear();
+        for (ArrayList<Entry<T>> cell : mCells) {
+            if (cell != null) {
+                cell.clear();
+            }
+        }
+        mNextOrder = 0;
+    }
+
+    private void list(Entry<T> entry) {
+        if (entry.right <= entry.left || entry.bottom <= entry.top) {
+            entry.firstColumn = 0;
+            entry.lastColumn = -1;
+            return;
+        }
+        entry.firstColumn = column(entry.left);
+        entry.lastColumn = column(entry.right - 1);
+        entry.firstRow = row(entry.top);
+        entry.lastRow = row(entry.bottom - 1);
+        for (int row = entry.firstRow; row <= entry.lastRow; row++) {
+            for (int column = entry.firstColumn; column <= entry.lastColumn; column++) {
+                int index = row * mColumns + column;
+                if (mCells[index] == null) {
+                    mCells[index] = new ArrayList<>(4);
+                }
+                mCells[index].add(entry);
+            }
+        }
+    }
+
+    private void unlist(Entry<T> entry) {
+        for (int row = entry.firstRow; row <= entry.lastRow; row++) {
+            for (int column = entry.firstColumn; column <= entry.lastColumn; column++) {
+                mCells[row * mColumns + column].remove(entry);
+            }
+        }
+    }
+
+    private int column(int x) {
+        return Math.min(Math.max(x / mCellSize, 0), mColumns - 1);
+    }
+
+    private int row(int y) {
+        return Math.min(Math.max(y / mCellSize, 0), mRows - 1);
+    }
+
+    private Entry<T> obtainEntry() {
+        Entry<T> entry = mFreeEntries;
+        if (entry == null) {
+            return new Entry<>();
+        }
+        mFreeEntries = entry.nextFree;
+        entry.nextFree = null;
+        return entry;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> ArrayList<Entry<T>>[] newCells(int count) {
+        return (ArrayList<Entry<T>>[]) new ArrayList[count];
+    }
+}
@@ -0,0 +1,29 @@
+/*
+Copyright 2016 Tomer Goldstein
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package com.tomergoldst.tooltips.core;
+
+/**
+ * Measures a tip again when it has to be narrowed to fit in the root.
+ */
+public interface TipMeasurer {
+
+    /**
+     * @param width the exact width the tip will be laid out with
+     * @return the tip height for that width
+     */
+    int measureHeight(int width);
+}
@@ -0,0 +1,363 @@
+/*
+Copyright 2016 Tomer Goldstein
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package com.tomergoldst.tooltips.core;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+/**
+ * Live tips, looked up by anchor identity, by tip, and by group tag.
+ * An anchor may have several tips. Entries are linked into intrusive lists per anchor,
+ * per group and overall, so adding, removing and finding the anchor of a tip are O(1),
+ * and whole groups are visited without copying. Removed entries are reused, so a steady
+ * show / dismiss cycle does not allocate.
+ *
+ * @param <A> anchor type
+ * @param <V> tip type
+ */
+public final class TipRegistry<A, V> {
+
+    public static final int NO_ID = -1;
+
+    // empty groups kept for the next show, so dismissing and showing a group again does not
+    // allocate, while one-off group tags do not pile up
+    private static final int MAX_EMPTY_GROUPS = 8;
+
+    /**
+     * Visits tips. Any tip may be removed from the registry during the visit, tips removed
+     * before their turn are not visited.
+     */
+    public interface Visitor<V> {
+        void visit(V tip);
+    }
+
+    private static final class Entry<A, V> {
+        A anchor;
+        V tip;
+        int anchorId;
+        Object group;
+
+        // all tips in show order
+        Entry<A, V> prev;
+        Entry<A, V> next;
+        // tips of the same anchor, most recent first
+        Entry<A, V> prevOnAnchor;
+        Entry<A, V> nextOnAnchor;
+        // tips of the same group in show order
+        Entry<A, V> prevInGroup;
+        Entry<A, V> nextInGroup;
+        // free entries
+        Entry<A, V> nextFree;
+
+        /**
+         * Drop the tip of a removed entry. The links to the following entries are kept, so a
+         * visit in progress steps past the entry to the tips after it.
+         */
+        void clear() {
+            anchor = null;
+            tip = null;
+            anchorId = NO_ID;
+            group = null;
+            prev = null;
+            prevOnAnchor = null;
+            prevInGroup = null;
+        }
+    }
+
+    private static final class Group<A, V> {
+        Entry<A, V> head;
+        Entry<A, V> tail;
+        int size;
+    }
+
+    private final IdentityHashMap<A, Entry<A, V>> mAnchorHeads = new IdentityHashMap<>();
+    private final IdentityHashMap<V, Entry<A, V>> mEntries = new IdentityHashMap<>();
+    private final HashMap<Object, Group<A, V>> mGroups = new HashMap<>();
+    private int mEmptyGroups;
+
+    private Entry<A, V> mHead;
+    private Entry<A, V> mTail;
+    private int mSize;
+    // removed entries, linked through nextFree
+    private Entry<A, V> mFreeEntries;
+    // entries removed during a visit, reused once no visit is in progress
+    private Entry<A, V> mRemovedWhileVisiting;
+    private int mVisits;
+
+    /**
+     * @param anchorId id of the anchor, reported to listeners, or {@link #NO_ID}
+     * @param group tag to dismiss the tip with others, or null
+     */
+    public void add(A anchor, int anchorId, V tip, Object group) {
+        if (mEntries.containsKey(tip)) {
+            throw new IllegalArgumentException("tip is already registered");
+        }
+
+        Entry<A, V> entry = obtainEntry();
+        entry.anchor = anchor;
+        entry.anchorId = anchorId;
+        entry.tip = tip;
+        entry.group = group;
+        mEntries.put(tip, entry);
+
+        entry.prev = mTail;
+        if (mTail != null) {
+            mTail.next = entry;
+        } else {
+            mHead = entry;
+        }
+        mTail = entry;
+
+        Entry<A, V> anchorHead = mAnchorHeads.put(anchor, entry);
+        if (anchorHead != null) {
+            entry.nextOnAnchor = anchorHead;
+            anchorHead.prevOnAnchor = entry;
+        }
+
+        if (group != null) {
+            Group<A, V> tipGroup = mGroups.get(group);
+            if (tipGroup == null) {
+                tipGroup = new Group<>();
+                mGroups.put(group, tipGroup);
+            } else if (tipGroup.size == 0) {
+                mEmptyGroups--;
+            }
+            entry.prevInGroup = tipGroup.tail;
+            if (tipGroup.tail != null) {
+                tipGroup.tail.nextInGroup = entry;
+            } else {
+                tipGroup.head = entry;
+            }
+            tipGroup.tail = entry;
+            tipGroup.size++;
+        }
+
+        mSize++;
+    }
+
+    /**
+     * @return true if the tip was registered
+     */
+    public boolean remove(V tip) {
+        Entry<A, V> entry = mEntries.remove(tip);
+        if (entry == null) {
+            return false;
+        }
+
+        if (entry.prev != null) {
+            entry.prev.next = entry.next;
+        } else {
+            mHead = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.prev = entry.prev;
+        } else {
+            mTail = entry.prev;
+        }
+
+        if (entry.prevOnAnchor != null) {
+            entry.prevOnAnchor.nextOnAnchor = entry.nextOnAnchor;
+        } else if (entry.nextOnAnchor != null) {
+            mAnchorHeads.put(entry.anchor, entry.nextOnAnchor);
+        } else {
+            mAnchorHeads.remove(entry.anchor);
+        }
+        if (entry.nextOnAnchor != null) {
+            entry.nextOnAnchor.prevOnAnchor = entry.prevOnAnchor;
+        }
+
+        if (entry.group != null) {
+            Group<A, V> tipGroup = mGroups.get(entry.group);
+            if (entry.prevInGroup != null) {
+                entry.prevInGroup.nextInGroup = entry.nextInGroup;
+            } else {
+                tipGroup.head = entry.nextInGroup;
+            }
+            if (entry.nextInGroup != null) {
+                entry.nextInGroup.prevInGroup = entry.prevInGroup;
+            } else {
+                tipGroup.tail = entry.prevInGroup;
+            }
+            if (--tipGroup.size == 0) {
+                if (mEmptyGroups < MAX_EMPTY_GROUPS) {
+                    mEmptyGroups++;
+                } else {
+                    mGroups.remove(entry.group);
+                }
+            }
+        }
+
+        mSize--;
+        entry.clear();
+        if (mVisits > 0) {
+            entry.nextFree = mRemovedWhileVisiting;
+            mRemovedWhileVisiting = entry;
+        } else {
+            recycleEntry(entry);
+        }
+        return true;
+    }
+
+    public boolean contains(V tip) {
+        return mEntries.containsKey(tip);
+    }
+
+    /**
+     * @return the most recent tip of the anchor, or null
+     */
+    public V find(A anchor) {
+        Entry<A, V> entry = mAnchorHeads.get(anchor);
+        return entry != null ? entry.tip : null;
+    }
+
+    /**
+     * Linear lookup for callers that only know the anchor id. Prefer {@link #find(Object)}.
+     *
+     * @return the first tip shown for an anchor with this id, or null
+     */
+    public V findById(int anchorId) {
+        for (Entry<A, V> entry = mHead; entry != null; entry = entry.next) {
+            if (entry.anchorId == anchorId) {
+                return entry.tip;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the anchor of a registered tip, or null
+     */
+    public A getAnchor(V tip) {
+        Entry<A, V> entry = mEntries.get(tip);
+        return entry != null ? entry.anchor : null;
+    }
+
+    /**
+     * @return the anchor id of a registered tip, or {@link #NO_ID}
+     */
+    public int getAnchorId(V tip) {
+        Entry<A, V> entry = mEntries.get(tip);
+        return entry != null ? entry.anchorId : NO_ID;
+    }
+
+    /**
+     * @return the group of a registered tip, or null
+     */
+    public Object getGroup(V tip) {
+        Entry<A, V> entry = mEntries.get(tip);
+        return entry != null ? entry.group : null;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    public int groupSize(Object group) {
+        Group<A, V> tipGroup = mGroups.get(group);
+        return tipGroup != null ? tipGroup.size : 0;
+    }
+
+    /**
+     * Visit all tips in show order
+     */
+    public void forEach(Visitor<V> visitor) {
+        mVisits++;
+        try {
+            for (Entry<A, V> entry = mHead; entry != null; entry = entry.next) {
+                // skips tips removed by an earlier visit
+                if (entry.tip != null) {
+                    visitor.visit(entry.tip);
+                }
+            }
+        } finally {
+            endVisit();
+        }
+    }
+
+    /**
+     * Visit the tips of an anchor, most recent first
+     */
+    public void forEachOfAnchor(A anchor, Visitor<V> visitor) {
+        mVisits++;
+        try {
+            for (Entry<A, V> entry = mAnchorHeads.get(anchor); entry != null; entry = entry.nextOnAnchor) {
+                if (entry.tip != null) {
+                    visitor.visit(entry.tip);
+                }
+            }
+        } finally {
+            endVisit();
+        }
+    }
+
+    /**
+     * Visit the tips of a group in show order
+     */
+    public void forEachInGroup(Object group, Visitor<V> visitor) {
+        Group<A, V> tipGroup = mGroups.get(group);
+        mVisits++;
+        try {
+            for (Entry<A, V> entry = tipGroup != null ? tipGroup.head : null; entry != null;
+                 entry = entry.nextInGroup) {
+                if (entry.tip != null) {
+                    visitor.visit(entry.tip);
+                }
+            }
+        } finally {
+            endVisit();
+        }
+    }
+
+    private void endVisit() {
+        if (--mVisits > 0) {
+            return;
+        }
+        while (mRemovedWhileVisiting != null) {
+            Entry<A, V> entry = mRemovedWhileVisiting;
+            mRemovedWhileVisiting = entry.nextFree;
+            recycleEntry(entry);
+        }
+    }
+
+    public void clear() {
+        while (mHead != null) {
+            remove(mHead.tip);
+        }
+    }
+
+    private Entry<A, V> obtainEntry() {
+        Entry<A, V> entry = mFreeEntries;
+        if (entry == null) {
+            return new Entry<>();
+        }
+        mFreeEntries = entry.nextFree;
+        entry.nextFree = null;
+        return entry;
+    }
+
+    private void recycleEntry(Entry<A, V> entry) {
+        entry.next = null;
+        entry.nextOnAnchor = null;
+        entry.nextInGroup = null;
+        entry.nextFree = mFreeEntries;
+        mFreeEntries = entry;
+    }
+}
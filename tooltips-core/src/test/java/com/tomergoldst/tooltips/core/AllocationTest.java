@@ -0,0 +1,116 @@
+package com.tomergoldst.tooltips.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * The show / dismiss path places tips and updates the registry on every scroll.
+ * Once warmed up, doing so again must not allocate.
+ */
+public class AllocationTest {
+
+    private static final int WARM_UP = 20000;
+    private static final int ITERATIONS = 20000;
+
+    private final TipMeasurer mMeasurer = new TipMeasurer() {
+        @Override
+        public int measureHeight(int width) {
+            return 90;
+        }
+    };
+
+    private final int[] mCandidates = {
+            PlacementEngine.POSITION_ABOVE,
+            PlacementEngine.POSITION_BELOW,
+            PlacementEngine.POSITION_LEFT_TO
+    };
+
+    private final PlacementSpec mSpec = new PlacementSpec();
+    private final Placement mPlacement = new Placement();
+    private final TipRegistry<Object, Object> mRegistry = new TipRegistry<>();
+    private final Object[] mAnchors = new Object[8];
+    private final Object[] mTips = new Object[8];
+    private final Object mGroup = new Object();
+
+    private com.sun.management.ThreadMXBean mThreadBean;
+
+    private final TipRegistry.Visitor<Object> mDismissVisitor = new TipRegistry.Visitor<Object>() {
+        @Override
+        public void visit(Object tip) {
+            mRegistry.remove(tip);
+        }
+    };
+
+    @Before
+    public void setUp() {
+        java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+        mThreadBean = (com.sun.management.ThreadMXBean) threadBean;
+        assumeTrue(mThreadBean.isThreadAllocatedMemorySupported());
+        mThreadBean.setThreadAllocatedMemoryEnabled(true);
+
+        for (int i = 0; i < mAnchors.length; i++) {
+            mAnchors[i] = new Object();
+            mTips[i] = new Object();
+        }
+    }
+
+    @Test
+    public void place_does_not_allocate() {
+        for (int i = 0; i < WARM_UP; i++) {
+            place(i);
+        }
+        long before = allocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++) {
+            place(i);
+        }
+        assertEquals(0, allocatedBytes() - before);
+    }
+
+    @Test
+    public void show_and_dismiss_does_not_allocate() {
+        for (int i = 0; i < WARM_UP; i++) {
+            showAndDismiss(i);
+        }
+        long before = allocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++) {
+            showAndDismiss(i);
+        }
+        assertEquals(0, allocatedBytes() - before);
+    }
+
+    private void place(int i) {
+        int anchorLeft = 100 + (i & 255);
+        mSpec.setRoot(0, 0, 1000, 2000)
+                .setRootPadding(10, 20, 10, 20)
+                .setAnchor(anchorLeft, 1000, anchorLeft + 200, 1100)
+                .setOffset(0, 0)
+                .setRtl(false);
+        int position = PlacementEngine.selectPosition(mSpec, mCandidates, 300, 90);
+        mSpec.setPosition(position, PlacementEngine.ALIGN_CENTER);
+        PlacementEngine.place(mSpec, 300, 90, mMeasurer, mPlacement);
+    }
+
+    private void showAndDismiss(int i) {
+        for (int j = 0; j < mTips.length; j++) {
+            mRegistry.add(mAnchors[j], j + 1, mTips[j], (j & 1) == 0 ? mGroup : null);
+        }
+        if (mRegistry.find(mAnchors[i & 7]) != mTips[i & 7]) {
+            throw new AssertionError();
+        }
+        mRegistry.forEachInGroup(mGroup, mDismissVisitor);
+        mRegistry.forEachOfAnchor(mAnchors[1], mDismissVisitor);
+        for (int j = 0; j < mTips.length; j++) {
+            mRegistry.remove(mTips[j]);
+        }
+    }
+
+    private long allocatedBytes() {
+        return mThreadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
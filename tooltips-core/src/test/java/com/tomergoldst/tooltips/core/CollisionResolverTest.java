@@ -0,0 +1,108 @@
+package com.tomergoldst.tooltips.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CollisionResolverTest {
+
+    private static final int ALTERNATIVE = 7;
+
+    private CollisionResolver mResolver;
+
+    @Before
+    public void setUp() {
+        mResolver = new CollisionResolver(TipGrid.DEFAULT_CELL_SIZE);
+        mResolver.begin(0, 0, 1000, 2000);
+    }
+
+    @Test
+    public void tips_apart_keep_their_place() {
+        mResolver.addTip(0, 0, 100, 50, CollisionResolver.AXIS_HORIZONTAL);
+        mResolver.addTip(100, 0, 100, 50, CollisionResolver.AXIS_HORIZONTAL);
+        mResolver.resolve();
+
+        assertFalse(mResolver.isMoved(0));
+        assertFalse(mResolver.isMoved(1));
+    }
+
+    @Test
+    public void later_tip_moves_to_a_free_alternative() {
+        mResolver.addTip(100, 100, 200, 50, CollisionResolver.AXIS_HORIZONTAL);
+        mResolver.addTip(150, 120, 200, 50, CollisionResolver.AXIS_HORIZONTAL);
+        // the first alternative overlaps the first tip too
+        mResolver.addAlternative(ALTERNATIVE - 1, 150, 80);
+        mResolver.addAlternative(ALTERNATIVE, 150, 300);
+        mResolver.resolve();
+
+        assertFalse(mResolver.isMoved(0));
+        assertTrue(mResolver.isMoved(1));
+        assertEquals(ALTERNATIVE, mResolver.getPosition(1));
+        assertEquals(150, mResolver.getLeft(1));
+        assertEquals(300, mResolver.getTop(1));
+    }
+
+    @Test
+    public void tip_slides_to_the_nearer_side() {
+        mResolver.addTip(100, 100, 200, 50, CollisionResolver.AXIS_HORIZONTAL);
+        mResolver.addTip(250, 120, 200, 50, CollisionResolver.AXIS_HORIZONTAL);
+        mResolver.addTip(400, 500, 100, 100, CollisionResolver.AXIS_VERTICAL);
+        mResolver.addTip(420, 420, 100, 100, CollisionResolver.AXIS_VERTICAL);
+        mResolver.resolve();
+
+        assertEquals(CollisionResolver.NO_POSITION, mResolver.getPosition(1));
+        assertEquals(300, mResolver.getLeft(1));
+        assertEquals(120, mResolver.getTop(1));
+        assertEquals(420, mResolver.getLeft(3));
+        assertEquals(400, mResolver.getTop(3));
+    }
+
+    @Test
+    public void tip_slides_past_several_tips() {
+        mResolver.addTip(0, 0, 100, 50, CollisionResolver.AXIS_HORIZONTAL);
+        mResolver.addTip(100, 0, 100, 50, CollisionResolver.AXIS_HORIZONTAL);
+        mResolver.addTip(200, 0, 100, 50, CollisionResolver.AXIS_HORIZONTAL);
+        mResolver.addTip(20, 10, 100, 50, CollisionResolver.AXIS_HORIZONTAL);
+        mResolver.resolve();
+
+        assertTrue(mResolver.isMoved(3));
+        assertEquals(300, mResolver.getLeft(3));
+    }
+
+    @Test
+    public void tip_slides_the_other_way_at_the_area_edge() {
+        mResolver.addTip(850, 0, 100, 50, CollisionResolver.AXIS_HORIZONTAL);
+        mResolver.addTip(920, 0, 80, 50, CollisionResolver.AXIS_HORIZONTAL);
+        mResolver.resolve();
+
+        assertEquals(770, mResolver.getLeft(1));
+    }
+
+    @Test
+    public void tip_which_cannot_move_keeps_its_place() {
+        mResolver.begin(0, 0, 200, 200);
+        mResolver.addTip(0, 0, 200, 50, CollisionResolver.AXIS_HORIZONTAL);
+        mResolver.addTip(50, 20, 100, 50, CollisionResolver.AXIS_HORIZONTAL);
+        mResolver.resolve();
+
+        assertFalse(mResolver.isMoved(1));
+        assertEquals(50, mResolver.getLeft(1));
+        assertEquals(20, mResolver.getTop(1));
+    }
+
+    @Test
+    public void a_new_pass_drops_earlier_tips() {
+        mResolver.addTip(0, 0, 100, 50, CollisionResolver.AXIS_HORIZONTAL);
+        mResolver.resolve();
+
+        mResolver.begin(0, 0, 1000, 2000);
+        mResolver.addTip(0, 0, 100, 50, CollisionResolver.AXIS_HORIZONTAL);
+        mResolver.resolve();
+
+        assertEquals(1, mResolver.size());
+        assertFalse(mResolver.isMoved(0));
+    }
+}
@@ -0,0 +1,135 @@
+package com.tomergoldst.tooltips.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PlacementEngineTest {
+
+    // tip height is always width independent, except when narrowed
+    private static final int NARROWED_HEIGHT = 90;
+
+    private final TipMeasurer mMeasurer = new TipMeasurer() {
+        @Override
+        public int measureHeight(int width) {
+            return NARROWED_HEIGHT;
+        }
+    };
+
+    private PlacementSpec mSpec;
+    private Placement mPlacement;
+
+    @Before
+    public void setUp() {
+        mSpec = new PlacementSpec()
+                .setRoot(0, 0, 1000, 2000)
+                .setRootPadding(10, 20, 10, 20)
+                .setAnchor(400, 1000, 600, 1100);
+        mPlacement = new Placement();
+    }
+
+    @Test
+    public void above_centered() {
+        mSpec.setPosition(PlacementEngine.POSITION_ABOVE, PlacementEngine.ALIGN_CENTER);
+        PlacementEngine.place(mSpec, 100, 50, mMeasurer, mPlacement);
+
+        assertEquals(450 - 10, mPlacement.x);
+        assertEquals(950 - 20, mPlacement.y);
+        assertFalse(mPlacement.widthConstrained);
+    }
+
+    @Test
+    public void below_alignedRight() {
+        mSpec.setPosition(PlacementEngine.POSITION_BELOW, PlacementEngine.ALIGN_RIGHT);
+        PlacementEngine.place(mSpec, 100, 50, mMeasurer, mPlacement);
+
+        assertEquals(500 - 10, mPlacement.x);
+        assertEquals(1100 - 20, mPlacement.y);
+    }
+
+    @Test
+    public void below_centeredWiderThanRoot_isNarrowedToRoot() {
+        mSpec.setPosition(PlacementEngine.POSITION_BELOW, PlacementEngine.ALIGN_CENTER);
+        PlacementEngine.place(mSpec, 1200, 50, mMeasurer, mPlacement);
+
+        assertTrue(mPlacement.widthConstrained);
+        assertEquals(980, mPlacement.width);
+        assertEquals(NARROWED_HEIGHT, mPlacement.height);
+        assertEquals(0, mPlacement.x);
+    }
+
+    @Test
+    public void above_alignedLeftOutOfBounds_isNarrowedAndUsesNewHeight() {
+        mSpec.setPosition(PlacementEngine.POSITION_ABOVE, PlacementEngine.ALIGN_LEFT);
+        PlacementEngine.place(mSpec, 800, 50, mMeasurer, mPlacement);
+
+        assertTrue(mPlacement.widthConstrained);
+        assertEquals(990 - 400, mPlacement.width);
+        assertEquals(1000 - NARROWED_HEIGHT - 20, mPlacement.y);
+    }
+
+    @Test
+    public void leftTo_outOfBounds_isMovedToRootStart() {
+        mSpec.setPosition(PlacementEngine.POSITION_LEFT_TO, PlacementEngine.ALIGN_CENTER);
+        PlacementEngine.place(mSpec, 500, 50, mMeasurer, mPlacement);
+
+        assertTrue(mPlacement.widthConstrained);
+        assertEquals(400 - 10, mPlacement.width);
+        assertEquals(0, mPlacement.x);
+        assertEquals(1000 + (100 - NARROWED_HEIGHT) / 2 - 20, mPlacement.y);
+    }
+
+    @Test
+    public void rightTo_centeredVertically() {
+        mSpec.setPosition(PlacementEngine.POSITION_RIGHT_TO, PlacementEngine.ALIGN_CENTER);
+        PlacementEngine.place(mSpec, 100, 40, mMeasurer, mPlacement);
+
+        assertEquals(600 - 10, mPlacement.x);
+        assertEquals(1030 - 20, mPlacement.y);
+        assertFalse(mPlacement.widthConstrained);
+    }
+
+    @Test
+    public void selectPosition_skipsSidesThatDoNotFit() {
+        mSpec.setAnchor(400, 40, 600, 140).setPosition(PlacementEngine.POSITION_ABOVE, PlacementEngine.ALIGN_CENTER);
+        int[] candidates = {PlacementEngine.POSITION_ABOVE, PlacementEngine.POSITION_BELOW};
+
+        assertEquals(PlacementEngine.POSITION_BELOW,
+                PlacementEngine.selectPosition(mSpec, candidates, 100, 50));
+    }
+
+    @Test
+    public void selectPosition_fallsBackToFirstCandidateWhenNothingFits() {
+        int[] candidates = {PlacementEngine.POSITION_LEFT_TO, PlacementEngine.POSITION_RIGHT_TO};
+
+        assertEquals(PlacementEngine.POSITION_LEFT_TO,
+                PlacementEngine.selectPosition(mSpec, candidates, 700, 50));
+    }
+
+    @Test
+    public void placeAt_placesWithoutNarrowing() {
+        mSpec.setPosition(PlacementEngine.POSITION_ABOVE, PlacementEngine.ALIGN_CENTER);
+
+        assertTrue(PlacementEngine.placeAt(mSpec, PlacementEngine.POSITION_RIGHT_TO, 100, 50, mPlacement));
+        assertEquals(600 - 10, mPlacement.x);
+        assertEquals(1025 - 20, mPlacement.y);
+
+        assertFalse(PlacementEngine.placeAt(mSpec, PlacementEngine.POSITION_RIGHT_TO, 500, 50, mPlacement));
+        assertEquals(500, mPlacement.width);
+        assertFalse(mPlacement.widthConstrained);
+    }
+
+    @Test
+    public void offset_isMirroredOnRtl() {
+        mSpec.setPosition(PlacementEngine.POSITION_BELOW, PlacementEngine.ALIGN_LEFT)
+                .setOffset(5, 7)
+                .setRtl(true);
+        PlacementEngine.place(mSpec, 100, 50, mMeasurer, mPlacement);
+
+        assertEquals(400 - 5 - 10, mPlacement.x);
+        assertEquals(1100 + 7 - 20, mPlacement.y);
+    }
+}
@@ -0,0 +1,108 @@
+package com.tomergoldst.tooltips.core;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.MappedByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SeenTipsFileTest {
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void keys_survive_reopening() throws Exception {
+        File file = new File(mFolder.getRoot(), "seen");
+        SeenTipsFile seen = SeenTipsFile.open(file);
+        assertTrue(seen.add(SeenTipsFile.hash("welcome")));
+        assertFalse(seen.add(SeenTipsFile.hash("welcome")));
+        seen.flush();
+
+        SeenTipsFile reopened = SeenTipsFile.open(file);
+        assertTrue(reopened.contains(SeenTipsFile.hash("welcome")));
+        assertFalse(reopened.contains(SeenTipsFile.hash("settings")));
+        assertEquals(1, reopened.size());
+    }
+
+    @Test
+    public void grows_past_initial_capacity() throws Exception {
+        File file = new File(mFolder.getRoot(), "seen");
+        SeenTipsFile seen = SeenTipsFile.open(file);
+        for (int i = 0; i < 5000; i++) {
+            seen.add(SeenTipsFile.hash("hint" + i));
+        }
+        seen.flush();
+
+        SeenTipsFile reopened = SeenTipsFile.open(file);
+        assertEquals(5000, reopened.size());
+        for (int i = 0; i < 5000; i++) {
+            assertTrue(reopened.contains(SeenTipsFile.hash("hint" + i)));
+        }
+        assertFalse(reopened.contains(SeenTipsFile.hash("hint5000")));
+    }
+
+    @Test
+    public void lookups_do_not_wait_for_a_slow_flush() throws Exception {
+        File file = new File(mFolder.getRoot(), "seen");
+        final SeenTipsFile seen = SeenTipsFile.open(file);
+        final CountDownLatch forcing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        seen.mSyncer = new SeenTipsFile.Syncer() {
+            @Override
+            public void force(MappedByteBuffer table) {
+                forcing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                table.force();
+            }
+        };
+        seen.add(SeenTipsFile.hash("welcome"));
+        Thread flusher = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                seen.flush();
+            }
+        });
+        flusher.start();
+        assertTrue(forcing.await(5, TimeUnit.SECONDS));
+
+        // the flush is still writing, lookups and adds go on meanwhile
+        assertTrue(seen.contains(SeenTipsFile.hash("welcome")));
+        assertTrue(seen.add(SeenTipsFile.hash("settings")));
+        assertTrue(seen.contains(SeenTipsFile.hash("settings")));
+        assertFalse(seen.contains(SeenTipsFile.hash("profile")));
+        assertEquals(2, seen.size());
+
+        release.countDown();
+        flusher.join();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void key_with_zero_half_is_rejected() throws Exception {
+        SeenTipsFile.open(new File(mFolder.getRoot(), "seen")).add(0xabcdL);
+    }
+
+    @Test
+    public void foreign_file_is_started_over() throws Exception {
+        File file = new File(mFolder.getRoot(), "seen");
+        FileOutputStream out = new FileOutputStream(file);
+        out.write("<map><boolean name=\"welcome\" value=\"true\" /></map>".getBytes("UTF-8"));
+        out.close();
+
+        SeenTipsFile seen = SeenTipsFile.open(file);
+        assertEquals(0, seen.size());
+        assertTrue(seen.add(SeenTipsFile.hash("welcome")));
+    }
+}
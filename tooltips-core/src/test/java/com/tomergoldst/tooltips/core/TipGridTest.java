@@ -0,0 +1,95 @@
+package com.tomergoldst.tooltips.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class TipGridTest {
+
+    private TipGrid<String> mGrid;
+
+    @Before
+    public void setUp() {
+        mGrid = new TipGrid<>(100);
+        mGrid.setSize(1000, 2000);
+    }
+
+    @Test
+    public void finds_the_topmost_tip() {
+        mGrid.put("below", 50, 50, 350, 150);
+        mGrid.put("above", 250, 100, 450, 200);
+
+        assertEquals("below", mGrid.find(60, 60));
+        assertEquals("above", mGrid.find(300, 120));
+        assertEquals("above", mGrid.find(400, 190));
+        assertNull(mGrid.find(500, 120));
+        assertNull(mGrid.find(350, 60));
+    }
+
+    @Test
+    public void moved_tip_keeps_its_order() {
+        mGrid.put("first", 0, 0, 100, 100);
+        mGrid.put("second", 500, 500, 600, 600);
+        mGrid.put("first", 500, 500, 600, 600);
+
+        assertEquals("second", mGrid.find(550, 550));
+        assertNull(mGrid.find(50, 50));
+
+        mGrid.remove("second");
+        assertEquals("first", mGrid.find(550, 550));
+    }
+
+    @Test
+    public void bounds_outside_the_grid_fall_into_edge_cells() {
+        mGrid.put("clipped", -80, 1950, 40, 2100);
+
+        assertEquals("clipped", mGrid.find(-50, 2050));
+        assertEquals("clipped", mGrid.find(10, 1960));
+        assertNull(mGrid.find(-50, 1900));
+    }
+
+    @Test
+    public void resizing_keeps_tips() {
+        mGrid.put("tip", 800, 1800, 900, 1900);
+        mGrid.setSize(300, 300);
+        assertEquals("tip", mGrid.find(850, 1850));
+        mGrid.setSize(2000, 2000);
+        assertEquals("tip", mGrid.find(850, 1850));
+        assertNull(mGrid.find(250, 250));
+    }
+
+    @Test
+    public void removed_tip_is_not_found() {
+        mGrid.put("tip", 0, 0, 300, 300);
+        mGrid.remove("tip");
+
+        assertNull(mGrid.find(150, 150));
+        assertFalse(mGrid.contains("tip"));
+        assertEquals(0, mGrid.size());
+    }
+
+    @Test
+    public void finds_the_topmost_tip_intersecting_a_rectangle() {
+        mGrid.put("below", 50, 50, 350, 150);
+        mGrid.put("above", 300, 100, 450, 200);
+
+        assertEquals("below", mGrid.findIntersecting(0, 0, 100, 100));
+        assertEquals("above", mGrid.findIntersecting(320, 120, 900, 900));
+        assertNull(mGrid.findIntersecting(450, 0, 900, 900));
+        assertNull(mGrid.findIntersecting(0, 150, 300, 300));
+    }
+
+    @Test
+    public void cleared_grid_is_empty() {
+        mGrid.put("tip", 0, 0, 300, 300);
+        mGrid.clear();
+
+        assertNull(mGrid.findIntersecting(0, 0, 1000, 1000));
+        assertEquals(0, mGrid.size());
+        mGrid.put("tip", 0, 0, 300, 300);
+        assertEquals("tip", mGrid.find(10, 10));
+    }
+}
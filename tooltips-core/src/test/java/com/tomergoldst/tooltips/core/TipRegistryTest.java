@@ -0,0 +1,138 @@
+package com.tomergoldst.tooltips.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TipRegistryTest {
+
+    private TipRegistry<String, String> mRegistry;
+    private final List<String> mVisited = new ArrayList<>();
+
+    private final TipRegistry.Visitor<String> mRemovingVisitor = new TipRegistry.Visitor<String>() {
+        @Override
+        public void visit(String tip) {
+            mVisited.add(tip);
+            mRegistry.remove(tip);
+        }
+    };
+
+    @Before
+    public void setUp() {
+        mRegistry = new TipRegistry<>();
+    }
+
+    @Test
+    public void anchors_without_id_do_not_share_a_slot() {
+        String first = new String("anchor");
+        String second = new String("anchor");
+        mRegistry.add(first, TipRegistry.NO_ID, "tip1", null);
+        mRegistry.add(second, TipRegistry.NO_ID, "tip2", null);
+
+        assertEquals("tip1", mRegistry.find(first));
+        assertEquals("tip2", mRegistry.find(second));
+        assertSame(second, mRegistry.getAnchor("tip2"));
+    }
+
+    @Test
+    public void several_tips_per_anchor() {
+        mRegistry.add("a", 1, "tip1", null);
+        mRegistry.add("a", 1, "tip2", null);
+        mRegistry.add("a", 1, "tip3", null);
+
+        assertEquals("tip3", mRegistry.find("a"));
+        mRegistry.remove("tip3");
+        assertEquals("tip2", mRegistry.find("a"));
+
+        mRegistry.forEachOfAnchor("a", mRemovingVisitor);
+        assertEquals(Arrays.asList("tip2", "tip1"), mVisited);
+        assertNull(mRegistry.find("a"));
+        assertTrue(mRegistry.isEmpty());
+    }
+
+    @Test
+    public void dismiss_group_while_visiting() {
+        mRegistry.add("a", 1, "tip1", "screen");
+        mRegistry.add("b", 2, "tip2", null);
+        mRegistry.add("c", 3, "tip3", "screen");
+
+        assertEquals(2, mRegistry.groupSize("screen"));
+        mRegistry.forEachInGroup("screen", mRemovingVisitor);
+
+        assertEquals(Arrays.asList("tip1", "tip3"), mVisited);
+        assertEquals(0, mRegistry.groupSize("screen"));
+        assertEquals(1, mRegistry.size());
+        assertEquals(2, mRegistry.getAnchorId("tip2"));
+    }
+
+    @Test
+    public void visit_all_in_show_order_and_reuse_entries() {
+        mRegistry.add("a", 1, "tip1", null);
+        mRegistry.add("b", 2, "tip2", "g");
+        mRegistry.add("c", 3, "tip3", null);
+        mRegistry.forEach(mRemovingVisitor);
+        assertEquals(Arrays.asList("tip1", "tip2", "tip3"), mVisited);
+        assertTrue(mRegistry.isEmpty());
+
+        mRegistry.add("c", 3, "tip3", null);
+        mRegistry.add("a", 1, "tip1", "g");
+        assertFalse(mRegistry.contains("tip2"));
+        assertEquals("tip1", mRegistry.findById(1));
+        assertEquals("g", mRegistry.getGroup("tip1"));
+        assertEquals(1, mRegistry.groupSize("g"));
+        assertEquals(TipRegistry.NO_ID, mRegistry.getAnchorId("tip2"));
+    }
+
+    @Test
+    public void remove_other_tips_while_visiting() {
+        mRegistry.add("a", 1, "tip1", "g");
+        mRegistry.add("b", 2, "tip2", "g");
+        mRegistry.add("c", 3, "tip3", "g");
+        mRegistry.add("d", 4, "tip4", "g");
+        TipRegistry.Visitor<String> visitor = new TipRegistry.Visitor<String>() {
+            @Override
+            public void visit(String tip) {
+                mVisited.add(tip);
+                // e.g. a listener dismissing another tip, then showing a new one
+                if (tip.equals("tip1")) {
+                    mRegistry.remove("tip2");
+                    mRegistry.remove("tip3");
+                    if (!mRegistry.contains("tip5")) {
+                        mRegistry.add("e", 5, "tip5", "g");
+                    }
+                }
+            }
+        };
+
+        mRegistry.forEach(visitor);
+        assertEquals(Arrays.asList("tip1", "tip4", "tip5"), mVisited);
+
+        mVisited.clear();
+        mRegistry.add("b", 2, "tip2", "g");
+        mRegistry.add("c", 3, "tip3", "g");
+        mRegistry.forEachInGroup("g", visitor);
+        assertEquals(Arrays.asList("tip1", "tip4", "tip5"), mVisited);
+        assertEquals(3, mRegistry.size());
+        assertEquals(Arrays.asList("tip1", "tip4", "tip5"), visitAll());
+    }
+
+    private List<String> visitAll() {
+        final List<String> tips = new ArrayList<>();
+        mRegistry.forEach(new TipRegistry.Visitor<String>() {
+            @Override
+            public void visit(String tip) {
+                tips.add(tip);
+            }
+        });
+        return tips;
+    }
+}
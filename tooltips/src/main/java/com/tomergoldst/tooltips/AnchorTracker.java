@@ -0,0 +1,189 @@
+/*
+Copyright 2016 Tomer Goldstein
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package com.tomergoldst.tooltips;
+
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
+
+import java.util.ArrayList;
+
+/**
+ * Keeps tips next to anchors that scroll, animate or get laid out again.
+ * A single pre-draw listener per root checks every tracked anchor once a frame and moves
+ * only the tips whose anchor moved, by translation, so no layout pass is requested.
+ */
+class AnchorTracker {
+
+    private final ArrayList<RootTracker> mRootTrackers = new ArrayList<>();
+    private boolean mPaused;
+
+    /**
+     * @param rtl whether the tip is placed right-to-left, its translation is mirrored then
+     */
+    void track(View tipView, View anchorView, ViewGroup root, boolean rtl) {
+        RootTracker rootTracker = findRootTracker(root);
+        if (rootTracker == null) {
+            rootTracker = new RootTracker(root);
+            if (!mPaused) {
+                rootTracker.attach();
+            }
+            mRootTrackers.add(rootTracker);
+        }
+        rootTracker.add(tipView, anchorView, rtl);
+    }
+
+    void untrack(View tipView) {
+        for (int i = mRootTrackers.size() - 1; i >= 0; i--) {
+            RootTracker rootTracker = mRootTrackers.get(i);
+            if (rootTracker.remove(tipView) && rootTracker.isEmpty()) {
+                rootTracker.detach();
+                mRootTrackers.remove(i);
+            }
+        }
+    }
+
+    void clear() {
+        for (RootTracker rootTracker : mRootTrackers) {
+            rootTracker.detach();
+        }
+        mRootTrackers.clear();
+    }
+
+    /**
+     * Stop following anchors, e.g. while the screen is not visible. Tips catch up with
+     * their anchors on the first frame after resuming.
+     */
+    void setPaused(boolean paused) {
+        if (mPaused == paused) {
+            return;
+        }
+        mPaused = paused;
+        for (RootTracker rootTracker : mRootTrackers) {
+            if (paused) {
+                rootTracker.detach();
+            } else {
+                rootTracker.attach();
+            }
+        }
+    }
+
+    private RootTracker findRootTracker(ViewGroup root) {
+        for (RootTracker rootTracker : mRootTrackers) {
+            if (rootTracker.mRoot == root) {
+                return rootTracker;
+            }
+        }
+        return null;
+    }
+
+    private static class TrackedTip {
+        final View tipView;
+        final View anchorView;
+        final boolean rtl;
+        // anchor position relative to the root when the tip was last moved
+        int anchorX;
+        int anchorY;
+
+        TrackedTip(View tipView, View anchorView, boolean rtl) {
+            this.tipView = tipView;
+            this.anchorView = anchorView;
+            this.rtl = rtl;
+        }
+    }
+
+    private static class RootTracker implements ViewTreeObserver.OnPreDrawListener {
+
+        private final ViewGroup mRoot;
+        private final ArrayList<TrackedTip> mTrackedTips = new ArrayList<>();
+        private final int[] mLocation = new int[2];
+        private ViewTreeObserver mViewTreeObserver;
+
+        RootTracker(ViewGroup root) {
+            mRoot = root;
+            mViewTreeObserver = root.getViewTreeObserver();
+        }
+
+        void add(View tipView, View anchorView, boolean rtl) {
+            TrackedTip trackedTip = new TrackedTip(tipView, anchorView, rtl);
+            mRoot.getLocationOnScreen(mLocation);
+            int rootX = mLocation[0];
+            int rootY = mLocation[1];
+            anchorView.getLocationOnScreen(mLocation);
+            trackedTip.anchorX = mLocation[0] - rootX;
+            trackedTip.anchorY = mLocation[1] - rootY;
+            mTrackedTips.add(trackedTip);
+        }
+
+        boolean remove(View tipView) {
+            for (int i = mTrackedTips.size() - 1; i >= 0; i--) {
+                if (mTrackedTips.get(i).tipView == tipView) {
+                    mTrackedTips.remove(i);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean isEmpty() {
+            return mTrackedTips.isEmpty();
+        }
+
+        void attach() {
+            mViewTreeObserver = mRoot.getViewTreeObserver();
+            mViewTreeObserver.addOnPreDrawListener(this);
+        }
+
+        void detach() {
+            // the observer a listener was added to may have been merged into another one
+            if (!mViewTreeObserver.isAlive()) {
+                mViewTreeObserver = mRoot.getViewTreeObserver();
+            }
+            mViewTreeObserver.removeOnPreDrawListener(this);
+        }
+
+        @Override
+        public boolean onPreDraw() {
+            // tips are children of the root and move with it, only anchor moves inside it matter
+            mRoot.getLocationOnScreen(mLocation);
+            int rootX = mLocation[0];
+            int rootY = mLocation[1];
+
+            for (int i = 0, size = mTrackedTips.size(); i < size; i++) {
+                TrackedTip trackedTip = mTrackedTips.get(i);
+                if (trackedTip.anchorView.getWindowToken() == null) {
+                    continue;
+                }
+                trackedTip.anchorView.getLocationOnScreen(mLocation);
+                int dx = mLocation[0] - rootX - trackedTip.anchorX;
+                int dy = mLocation[1] - rootY - trackedTip.anchorY;
+                if (dx != 0 || dy != 0) {
+                    trackedTip.anchorX += dx;
+                    trackedTip.anchorY += dy;
+                    // the manager mirrors the translation of a right-to-left tip
+                    trackedTip.tipView.setTranslationX(trackedTip.tipView.getTranslationX()
+                            + (!trackedTip.rtl ? dx : -dx));
+                    trackedTip.tipView.setTranslationY(trackedTip.tipView.getTranslationY() + dy);
+                    if (trackedTip.tipView.getParent() instanceof ToolTipHostLayout) {
+                        ((ToolTipHostLayout) trackedTip.tipView.getParent()).indexTip(trackedTip.tipView);
+                    }
+                }
+            }
+            return true;
+        }
+    }
+}
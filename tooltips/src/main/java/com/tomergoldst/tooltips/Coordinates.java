@@ -20,19 +20,31 @@ import android.view.View;
 
 class Coordinates {
 
+    // views are only measured on the main thread
+    private static final int[] sLocation = new int[2];
+
     int left;
     int top;
     int right;
     int bottom;
 
+    Coordinates() {
+    }
+
     Coordinates(View view) {
-        int[] location = new int[2];
-        view.getLocationOnScreen(location);
-        left = location[0];
-        right = left + view.getWidth();;
-        top = location[1];
-        bottom = top + view.getHeight();
+        set(view);
     }
 
+    /**
+     * Take the screen bounds of another view, for reusing an instance
+     */
+    Coordinates set(View view) {
+        view.getLocationOnScreen(sLocation);
+        left = sLocation[0];
+        right = left + view.getWidth();
+        top = sLocation[1];
+        bottom = top + view.getHeight();
+        return this;
+    }
 
 }
@@ -22,21 +22,27 @@ import android.animation.ObjectAnimator;
 import android.animation.PropertyValuesHolder;
 import android.view.View;
 import android.view.animation.AnticipateOvershootInterpolator;
+import android.view.animation.Interpolator;
 import android.view.animation.OvershootInterpolator;
 
 class DefaultToolTipAnimator implements ToolTipAnimator {
 
+    // interpolators keep no state, all animations share them
+    static final Interpolator POPUP_INTERPOLATOR = new OvershootInterpolator();
+    static final Interpolator POPOUT_INTERPOLATOR = new AnticipateOvershootInterpolator();
+
     @Override
     public ObjectAnimator popup(final View view, final long duration) {
         view.setAlpha(0);
         view.setVisibility(View.VISIBLE);
 
         ObjectAnimator popup = ObjectAnimator.ofPropertyValuesHolder(view,
-                PropertyValuesHolder.ofFloat("alpha", 0f, 1f),
-                PropertyValuesHolder.ofFloat("scaleX", 0f, 1f),
-                PropertyValuesHolder.ofFloat("scaleY", 0f, 1f));
+                PropertyValuesHolder.ofFloat(View.ALPHA, 0f, 1f),
+                PropertyValuesHolder.ofFloat(View.SCALE_X, 0f, 1f),
+                PropertyValuesHolder.ofFloat(View.SCALE_Y, 0f, 1f));
         popup.setDuration(duration);
-        popup.setInterpolator(new OvershootInterpolator());
+        popup.setInterpolator(POPUP_INTERPOLATOR);
+        popup.addListener(new HardwareLayerListener(view));
 
         return popup;
     }
@@ -44,10 +50,11 @@ class DefaultToolTipAnimator implements ToolTipAnimator {
     @Override
     public ObjectAnimator popout(final View view, final long duration, final AnimatorListenerAdapter animatorListenerAdapter) {
         ObjectAnimator popout = ObjectAnimator.ofPropertyValuesHolder(view,
-                PropertyValuesHolder.ofFloat("alpha", 1f, 0f),
-                PropertyValuesHolder.ofFloat("scaleX", 1f, 0f),
-                PropertyValuesHolder.ofFloat("scaleY", 1f, 0f));
+                PropertyValuesHolder.ofFloat(View.ALPHA, 1f, 0f),
+                PropertyValuesHolder.ofFloat(View.SCALE_X, 1f, 0f),
+                PropertyValuesHolder.ofFloat(View.SCALE_Y, 1f, 0f));
         popout.setDuration(duration);
+        popout.addListener(new HardwareLayerListener(view));
         popout.addListener(new AnimatorListenerAdapter() {
             @Override
             public void onAnimationEnd(Animator animation) {
@@ -58,8 +65,33 @@ class DefaultToolTipAnimator implements ToolTipAnimator {
                 }
             }
         });
-        popout.setInterpolator(new AnticipateOvershootInterpolator());
+        popout.setInterpolator(POPOUT_INTERPOLATOR);
 
         return popout;
     }
+
+    /**
+     * Keeps the tip on a hardware layer while it animates, so its text and background are
+     * drawn once and only the layer is faded and scaled on each frame
+     */
+    static class HardwareLayerListener extends AnimatorListenerAdapter {
+
+        private final View mView;
+        private int mLayerType = View.LAYER_TYPE_NONE;
+
+        HardwareLayerListener(View view) {
+            mView = view;
+        }
+
+        @Override
+        public void onAnimationStart(Animator animation) {
+            mLayerType = mView.getLayerType();
+            mView.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+        }
+
+        @Override
+        public void onAnimationEnd(Animator animation) {
+            mView.setLayerType(mLayerType, null);
+        }
+    }
 }
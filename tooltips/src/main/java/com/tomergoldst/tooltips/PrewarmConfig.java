@@ -0,0 +1,132 @@
+/*
+Copyright 2016 Tomer Goldstein
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package com.tomergoldst.tooltips;
+
+import android.content.Context;
+import android.graphics.Typeface;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.StyleRes;
+
+/**
+ * What {@link ToolTipsManager#prewarm(Context, PrewarmConfig)} gets ready, should match the
+ * tips shown first
+ */
+public final class PrewarmConfig {
+
+    @StyleRes
+    private final int mTextAppearanceStyle;
+    @Nullable
+    private final Typeface mTypeface;
+    @ColorInt
+    private final int mBackgroundColor;
+    private final boolean mLegacyBackground;
+    private final int mViewCount;
+
+    private PrewarmConfig(Builder builder) {
+        mTextAppearanceStyle = builder.mTextAppearanceStyle;
+        mTypeface = builder.mTypeface;
+        mBackgroundColor = builder.mBackgroundColor;
+        mLegacyBackground = builder.mLegacyBackground;
+        mViewCount = builder.mViewCount;
+    }
+
+    @StyleRes
+    int getTextAppearanceStyle() {
+        return mTextAppearanceStyle;
+    }
+
+    @Nullable
+    Typeface getTypeface() {
+        return mTypeface;
+    }
+
+    @ColorInt
+    int getBackgroundColor() {
+        return mBackgroundColor;
+    }
+
+    boolean usesLegacyBackground() {
+        return mLegacyBackground;
+    }
+
+    int getViewCount() {
+        return mViewCount;
+    }
+
+    public static class Builder {
+        private @StyleRes int mTextAppearanceStyle;
+        private @Nullable Typeface mTypeface;
+        private @ColorInt int mBackgroundColor;
+        private boolean mLegacyBackground;
+        private int mViewCount;
+
+        /**
+         * Creates the builder with the defaults of {@link ToolTip.Builder}
+         *
+         * @param context context
+         */
+        public Builder(@NonNull Context context) {
+            mTextAppearanceStyle = R.style.TooltipDefaultStyle;
+            mBackgroundColor = context.getResources().getColor(R.color.colorBackground);
+            mLegacyBackground = false;
+            mViewCount = 2;
+        }
+
+        @NonNull
+        public Builder setTextAppearance(@StyleRes int textAppearance){
+            mTextAppearanceStyle = textAppearance;
+            return this;
+        }
+
+        @NonNull
+        public Builder setTypeface(@Nullable Typeface typeface){
+            mTypeface = typeface;
+            return this;
+        }
+
+        @NonNull
+        public Builder setBackgroundColor(@ColorInt int backgroundColor){
+            mBackgroundColor = backgroundColor;
+            return this;
+        }
+
+        @NonNull
+        public Builder useLegacyBackground(boolean value){
+            mLegacyBackground = value;
+            return this;
+        }
+
+        /**
+         * @param count tip views to create ahead of time, at most as many as the manager pools
+         * @return builder
+         */
+        @NonNull
+        public Builder setViewCount(int count){
+            mViewCount = count;
+            return this;
+        }
+
+        @NonNull
+        public PrewarmConfig build(){
+            return new PrewarmConfig(this);
+        }
+    }
+}
@@ -0,0 +1,295 @@
+/*
+Copyright 2016 Tomer Goldstein
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package com.tomergoldst.tooltips;
+
+import android.view.View;
+
+import androidx.annotation.IdRes;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayList;
+
+/**
+ * Shows tips on {@link RecyclerView} items, anchored by the item's stable id and the id of
+ * a view inside the item rather than by a view which gets recycled.
+ * A tip is removed right away when its item view is detached, and shown again once the item
+ * is bound and attached again. Items attached while the list is flinging are only checked
+ * once it settles.
+ * The adapter must have stable ids. Requires the androidx RecyclerView library.
+ */
+public class RecyclerViewToolTips {
+
+    private static final class Entry {
+        final long mItemId;
+        @IdRes
+        final int mAnchorViewId;
+        final ToolTip mToolTip;
+        // set while the tip is shown, null while its item is off screen
+        @Nullable
+        View mItemView;
+        // the view the manager returned for the tip, other tips of the anchor are left alone
+        @Nullable
+        View mTipView;
+
+        Entry(long itemId, @IdRes int anchorViewId, ToolTip toolTip) {
+            mItemId = itemId;
+            mAnchorViewId = anchorViewId;
+            mToolTip = toolTip;
+        }
+    }
+
+    private final RecyclerView mRecyclerView;
+    private final ToolTipsManager mToolTipsManager;
+    private final ArrayList<Entry> mEntries = new ArrayList<>();
+    private boolean mSyncScheduled;
+    private boolean mSyncWhenSettled;
+
+    private final Runnable mSyncRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mSyncScheduled = false;
+            sync();
+        }
+    };
+
+    private final RecyclerView.OnChildAttachStateChangeListener mChildAttachListener =
+            new RecyclerView.OnChildAttachStateChangeListener() {
+                @Override
+                public void onChildViewAttachedToWindow(@NonNull View view) {
+                    // not laid out yet, show its tips once it is
+                    scheduleSync();
+                }
+
+                @Override
+                public void onChildViewDetachedFromWindow(@NonNull View view) {
+                    for (int i = 0; i < mEntries.size(); i++) {
+                        Entry entry = mEntries.get(i);
+                        if (entry.mItemView == view) {
+                            hide(entry);
+                        }
+                    }
+                }
+            };
+
+    private final RecyclerView.OnScrollListener mScrollListener = new RecyclerView.OnScrollListener() {
+        @Override
+        public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+            if (newState != RecyclerView.SCROLL_STATE_SETTLING && mSyncWhenSettled) {
+                mSyncWhenSettled = false;
+                scheduleSync();
+            }
+        }
+    };
+
+    private final RecyclerView.AdapterDataObserver mAdapterDataObserver =
+            new RecyclerView.AdapterDataObserver() {
+                @Override
+                public void onChanged() {
+                    scheduleSync();
+                }
+
+                @Override
+                public void onItemRangeChanged(int positionStart, int itemCount) {
+                    scheduleSync();
+                }
+
+                @Override
+                public void onItemRangeInserted(int positionStart, int itemCount) {
+                    scheduleSync();
+                }
+
+                @Override
+                public void onItemRangeRemoved(int positionStart, int itemCount) {
+                    scheduleSync();
+                }
+
+                @Override
+                public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+                    scheduleSync();
+                }
+            };
+
+    @Nullable
+    private RecyclerView.Adapter<?> mAdapter;
+
+    /**
+     * @param recyclerView list with an adapter set, which has stable ids
+     * @param toolTipsManager manager showing the tips
+     */
+    public RecyclerViewToolTips(@NonNull RecyclerView recyclerView, @NonNull ToolTipsManager toolTipsManager) {
+        mRecyclerView = recyclerView;
+        mToolTipsManager = toolTipsManager;
+        mRecyclerView.addOnChildAttachStateChangeListener(mChildAttachListener);
+        mRecyclerView.addOnScrollListener(mScrollListener);
+    }
+
+    /**
+     * Show a tip on an item, now if the item is on screen, otherwise once it is.
+     * Replaces a tip already set on the same view of the item.
+     *
+     * @param itemId stable id of the item
+     * @param anchorViewId id of the view inside the item view to anchor the tip to,
+     *                     or {@link View#NO_ID} for the item view itself
+     * @param toolTip the tip, its anchor view is replaced by the bound item's view.
+     *                Build it with {@link ToolTip.Builder#setTrackAnchor(boolean)} to keep it
+     *                on the item while the list scrolls
+     */
+    public void show(long itemId, @IdRes int anchorViewId, @NonNull ToolTip toolTip) {
+        RecyclerView.Adapter<?> adapter = mRecyclerView.getAdapter();
+        if (adapter == null || !adapter.hasStableIds()) {
+            throw new IllegalStateException("tips on list items require an adapter with stable ids");
+        }
+        observeAdapter(adapter);
+
+        dismiss(itemId, anchorViewId);
+        Entry entry = new Entry(itemId, anchorViewId, toolTip);
+        mEntries.add(entry);
+        if (mRecyclerView.getScrollState() != RecyclerView.SCROLL_STATE_SETTLING) {
+            showIfBound(entry);
+        } else {
+            mSyncWhenSettled = true;
+        }
+    }
+
+    /**
+     * @return true if a tip was set on the item view, shown or waiting for its item
+     */
+    public boolean dismiss(long itemId, @IdRes int anchorViewId) {
+        for (int i = 0; i < mEntries.size(); i++) {
+            Entry entry = mEntries.get(i);
+            if (entry.mItemId == itemId && entry.mAnchorViewId == anchorViewId) {
+                mEntries.remove(i);
+                if (entry.mTipView != null) {
+                    mToolTipsManager.dismiss(entry.mTipView, entry.mToolTip);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void dismissAll() {
+        for (int i = mEntries.size() - 1; i >= 0; i--) {
+            Entry entry = mEntries.remove(i);
+            if (entry.mTipView != null) {
+                mToolTipsManager.dismiss(entry.mTipView, entry.mToolTip);
+            }
+        }
+    }
+
+    /**
+     * Dismiss all tips and stop listening to the list
+     */
+    public void release() {
+        dismissAll();
+        mRecyclerView.removeOnChildAttachStateChangeListener(mChildAttachListener);
+        mRecyclerView.removeOnScrollListener(mScrollListener);
+        mRecyclerView.removeCallbacks(mSyncRunnable);
+        mSyncScheduled = false;
+        observeAdapter(null);
+    }
+
+    private void observeAdapter(@Nullable RecyclerView.Adapter<?> adapter) {
+        if (mAdapter == adapter) {
+            return;
+        }
+        if (mAdapter != null) {
+            mAdapter.unregisterAdapterDataObserver(mAdapterDataObserver);
+        }
+        mAdapter = adapter;
+        if (mAdapter != null) {
+            mAdapter.registerAdapterDataObserver(mAdapterDataObserver);
+        }
+    }
+
+    private void scheduleSync() {
+        if (mEntries.isEmpty() || mSyncScheduled) {
+            return;
+        }
+        if (mRecyclerView.getScrollState() == RecyclerView.SCROLL_STATE_SETTLING) {
+            // no work while flinging, items only pass by
+            mSyncWhenSettled = true;
+            return;
+        }
+        mSyncScheduled = true;
+        mRecyclerView.post(mSyncRunnable);
+    }
+
+    /**
+     * Hide tips whose item view is bound to another item now, show tips whose item is bound
+     */
+    private void sync() {
+        for (int i = mEntries.size() - 1; i >= 0; i--) {
+            Entry entry = mEntries.get(i);
+            if (entry.mTipView != null) {
+                if (!mToolTipsManager.isShown(entry.mTipView, entry.mToolTip)) {
+                    // dismissed by the user or the manager
+                    mEntries.remove(i);
+                    continue;
+                }
+                RecyclerView.ViewHolder holder = findAttachedViewHolder(entry.mItemView);
+                if (holder == null || holder.getItemId() != entry.mItemId) {
+                    hide(entry);
+                }
+            }
+            if (entry.mTipView == null) {
+                showIfBound(entry);
+            }
+        }
+    }
+
+    @Nullable
+    private RecyclerView.ViewHolder findAttachedViewHolder(@Nullable View itemView) {
+        if (itemView == null || itemView.getParent() != mRecyclerView) {
+            return null;
+        }
+        return mRecyclerView.getChildViewHolder(itemView);
+    }
+
+    private void showIfBound(Entry entry) {
+        RecyclerView.ViewHolder holder = mRecyclerView.findViewHolderForItemId(entry.mItemId);
+        if (holder == null || holder.itemView.getParent() != mRecyclerView
+                || holder.itemView.getWindowToken() == null) {
+            return;
+        }
+        View anchorView = entry.mAnchorViewId == View.NO_ID ?
+                holder.itemView : holder.itemView.findViewById(entry.mAnchorViewId);
+        if (anchorView == null) {
+            return;
+        }
+
+        entry.mToolTip.setAnchorView(anchorView);
+        View tipView = mToolTipsManager.show(entry.mToolTip);
+        if (tipView != null) {
+            entry.mItemView = holder.itemView;
+            entry.mTipView = tipView;
+        }
+    }
+
+    /**
+     * Remove the tip of an item which left the screen, without animation, until it is back
+     */
+    private void hide(Entry entry) {
+        if (entry.mTipView != null) {
+            mToolTipsManager.removeTip(entry.mTipView, entry.mToolTip);
+        }
+        entry.mItemView = null;
+        entry.mTipView = null;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+Copyright 2016 Tomer Goldstein
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package com.tomergoldst.tooltips;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.ArrayList;
+
+/**
+ * Counts the shown tips and pooled tip views of each root and reports a root detached from
+ * its window, so neither is kept around after their screen is gone.
+ * A root is only referenced while it has tips or pooled views.
+ */
+class RootDetachWatcher {
+
+    interface Callback {
+        void onRootDetached(ViewGroup root);
+    }
+
+    private final ArrayList<WatchedRoot> mWatchedRoots = new ArrayList<>();
+    private final Callback mCallback;
+
+    RootDetachWatcher(Callback callback) {
+        mCallback = callback;
+    }
+
+    void add(ViewGroup root) {
+        WatchedRoot watchedRoot = findWatchedRoot(root);
+        if (watchedRoot == null) {
+            watchedRoot = new WatchedRoot(root);
+            root.addOnAttachStateChangeListener(watchedRoot);
+            mWatchedRoots.add(watchedRoot);
+        }
+        watchedRoot.mTipCount++;
+    }
+
+    void remove(ViewGroup root) {
+        WatchedRoot watchedRoot = findWatchedRoot(root);
+        if (watchedRoot != null && --watchedRoot.mTipCount == 0) {
+            root.removeOnAttachStateChangeListener(watchedRoot);
+            mWatchedRoots.remove(watchedRoot);
+        }
+    }
+
+    void clear() {
+        for (WatchedRoot watchedRoot : mWatchedRoots) {
+            watchedRoot.mRoot.removeOnAttachStateChangeListener(watchedRoot);
+        }
+        mWatchedRoots.clear();
+    }
+
+    private WatchedRoot findWatchedRoot(ViewGroup root) {
+        for (int i = 0; i < mWatchedRoots.size(); i++) {
+            if (mWatchedRoots.get(i).mRoot == root) {
+                return mWatchedRoots.get(i);
+            }
+        }
+        return null;
+    }
+
+    private final class WatchedRoot implements View.OnAttachStateChangeListener {
+
+        private final ViewGroup mRoot;
+        private int mTipCount;
+
+        WatchedRoot(ViewGroup root) {
+            mRoot = root;
+        }
+
+        @Override
+        public void onViewAttachedToWindow(View v) {
+        }
+
+        @Override
+        public void onViewDetachedFromWindow(View v) {
+            mCallback.onRootDetached(mRoot);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+Copyright 2016 Tomer Goldstein
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package com.tomergoldst.tooltips;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.tomergoldst.tooltips.core.SeenTipsFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Remembers which tips were dismissed, across app launches, see
+ * {@link ToolTipsManager#setSeenTipsStore(SeenTipsStore)}.
+ * The file is memory-mapped, so opening it reads nothing and a lookup touches a few slots.
+ * Tips marked as seen are written to it in batches on a background thread.
+ */
+public final class SeenTipsStore {
+
+    private static final String TAG = SeenTipsStore.class.getSimpleName();
+
+    // Shared by all stores, writes are short and rare
+    private static Executor sWriteExecutor;
+
+    private final SeenTipsFile mFile;
+
+    // marked but not written yet, guarded by itself
+    private final Object mPendingLock = new Object();
+    private long[] mPending = new long[8];
+    private int mPendingCount;
+    private boolean mWriteScheduled;
+
+    private final Runnable mWritePending = new Runnable() {
+        @Override
+        public void run() {
+            writePending();
+        }
+    };
+
+    private SeenTipsStore(SeenTipsFile file) {
+        mFile = file;
+    }
+
+    /**
+     * Open the store with this name in the app's files directory, creating it if needed
+     */
+    @NonNull
+    public static SeenTipsStore open(@NonNull Context context, @NonNull String name) throws IOException {
+        return new SeenTipsStore(SeenTipsFile.open(new File(context.getFilesDir(), name)));
+    }
+
+    public boolean isSeen(@NonNull String key) {
+        return isSeen(SeenTipsFile.hash(key));
+    }
+
+    public void markSeen(@NonNull String key) {
+        markSeen(SeenTipsFile.hash(key));
+    }
+
+    boolean isSeen(long key) {
+        synchronized (mPendingLock) {
+            for (int i = 0; i < mPendingCount; i++) {
+                if (mPending[i] == key) {
+                    return true;
+                }
+            }
+        }
+        return mFile.contains(key);
+    }
+
+    void markSeen(long key) {
+        if (isSeen(key)) {
+            return;
+        }
+        synchronized (mPendingLock) {
+            if (mPendingCount == mPending.length) {
+                long[] pending = new long[mPendingCount * 2];
+                System.arraycopy(mPending, 0, pending, 0, mPendingCount);
+                mPending = pending;
+            }
+            mPending[mPendingCount++] = key;
+            if (!mWriteScheduled) {
+                mWriteScheduled = true;
+                getWriteExecutor().execute(mWritePending);
+            }
+        }
+    }
+
+    private void writePending() {
+        long[] keys;
+        int count;
+        synchronized (mPendingLock) {
+            mWriteScheduled = false;
+            count = mPendingCount;
+            keys = new long[count];
+            System.arraycopy(mPending, 0, keys, 0, count);
+        }
+
+        try {
+            for (int i = 0; i < count; i++) {
+                mFile.add(keys[i]);
+            }
+            mFile.flush();
+        } catch (IOException e) {
+            Log.w(TAG, "Unable to write seen tips", e);
+        }
+
+        // keys stay pending until written, so lookups never miss them. Keys marked meanwhile
+        // were appended and are written by the next run
+        synchronized (mPendingLock) {
+            mPendingCount -= count;
+            System.arraycopy(mPending, count, mPending, 0, mPendingCount);
+        }
+    }
+
+    private static synchronized Executor getWriteExecutor() {
+        if (sWriteExecutor == null) {
+            sWriteExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(@NonNull Runnable runnable) {
+                    Thread thread = new Thread(runnable, "ToolTipsSeenStore");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return sWriteExecutor;
+    }
+}
@@ -0,0 +1,315 @@
+/*
+Copyright 2016 Tomer Goldstein
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package com.tomergoldst.tooltips;
+
+import android.graphics.Typeface;
+import android.os.Build;
+import android.text.BoringLayout;
+import android.text.Layout;
+import android.text.PrecomputedText;
+import android.text.Spanned;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.util.LruCache;
+import android.view.Gravity;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.StyleRes;
+import androidx.annotation.WorkerThread;
+
+import java.util.Locale;
+
+/**
+ * Measured text layouts shared by all tips, so showing a message seen before skips
+ * text measurement and line breaking. Layouts are built with their own copy of the
+ * paint and hold no reference to a view. Text with spans is laid out but not cached,
+ * as a span may hold a context.
+ */
+class TextLayoutCache {
+
+    static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    private static final int MAX_CACHED_LAYOUTS = 64;
+
+    private static final LruCache<Key, Layout> sLayouts = new LruCache<>(MAX_CACHED_LAYOUTS);
+
+    // Reused for lookups from the main thread, Request.prepare() uses its own key
+    private static final Key sLookupKey = new Key();
+
+    private TextLayoutCache() {
+    }
+
+    /**
+     * @param paint paint styled with the given text appearance and typeface
+     * @param breakStrategy line break strategy of the view, see {@link #getBreakStrategy(TextView)}
+     * @param hyphenationFrequency hyphenation of the view, see {@link #getHyphenationFrequency(TextView)}
+     * @param textWidth width available for text, or {@link #UNBOUNDED}
+     * @param exact true if the layout must be exactly textWidth wide, otherwise it is as
+     *              wide as the widest line up to textWidth
+     */
+    static Layout obtain(@NonNull CharSequence text, @NonNull TextPaint paint,
+                         @StyleRes int textAppearanceStyle, @Nullable Typeface typeface,
+                         int gravity, int breakStrategy, int hyphenationFrequency,
+                         int textWidth, boolean exact) {
+        CharSequence cacheableText = getCacheableText(text);
+        if (cacheableText == null) {
+            return build(text, new TextPaint(paint), gravity, breakStrategy, hyphenationFrequency,
+                    textWidth, exact);
+        }
+
+        sLookupKey.set(cacheableText, textAppearanceStyle, typeface, paint, gravity, breakStrategy,
+                hyphenationFrequency, textWidth, exact);
+        Layout layout = sLayouts.get(sLookupKey);
+        sLookupKey.text = null;
+        if (layout == null) {
+            layout = build(cacheableText, new TextPaint(paint), gravity, breakStrategy,
+                    hyphenationFrequency, textWidth, exact);
+            Key key = new Key();
+            key.set(cacheableText, textAppearanceStyle, typeface, paint, gravity, breakStrategy,
+                    hyphenationFrequency, textWidth, exact);
+            sLayouts.put(key, layout);
+        }
+        return layout;
+    }
+
+    /**
+     * @return the line break strategy the view lays its text out with, 0 before API 23
+     */
+    static int getBreakStrategy(TextView textView) {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.M ? textView.getBreakStrategy() : 0;
+    }
+
+    /**
+     * @return the hyphenation frequency the view lays its text out with, 0 before API 23
+     */
+    static int getHyphenationFrequency(TextView textView) {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.M ? textView.getHyphenationFrequency() : 0;
+    }
+
+    /**
+     * @return the text as an immutable string if it has no spans, or null if it has spans,
+     * which must not outlive the screen that set them
+     */
+    @Nullable
+    private static CharSequence getCacheableText(CharSequence text) {
+        if (text instanceof String) {
+            return text;
+        }
+        if (text instanceof Spanned && ((Spanned) text).getSpans(0, text.length(), Object.class).length > 0) {
+            return null;
+        }
+        return text.toString();
+    }
+
+    /**
+     * Everything needed to build the layout a tip view will ask for when measured
+     * without constraints, captured on the main thread so it can be built on another
+     */
+    static final class Request {
+        private final CharSequence mText;
+        private final TextPaint mPaint;
+        @StyleRes private final int mTextAppearanceStyle;
+        @Nullable private final Typeface mTypeface;
+        private final int mGravity;
+        private final int mBreakStrategy;
+        private final int mHyphenationFrequency;
+        private final int mTextWidth;
+        @Nullable private final Object mTextMetricsParams;
+
+        private Request(CharSequence text, TextPaint paint, @StyleRes int textAppearanceStyle,
+                        @Nullable Typeface typeface, int gravity, int breakStrategy,
+                        int hyphenationFrequency, int textWidth, @Nullable Object textMetricsParams) {
+            mText = text;
+            mPaint = paint;
+            mTextAppearanceStyle = textAppearanceStyle;
+            mTypeface = typeface;
+            mGravity = gravity;
+            mBreakStrategy = breakStrategy;
+            mHyphenationFrequency = hyphenationFrequency;
+            mTextWidth = textWidth;
+            mTextMetricsParams = textMetricsParams;
+        }
+
+        /**
+         * @param tipView a styled tip view with its background set
+         */
+        static Request from(TextView tipView, ToolTip toolTip) {
+            int horizontalPadding = tipView.getCompoundPaddingLeft() + tipView.getCompoundPaddingRight();
+            int textWidth = toolTip.getMaxWidth() > 0 ?
+                    Math.max(toolTip.getMaxWidth() - horizontalPadding, 0) : UNBOUNDED;
+            Object textMetricsParams = null;
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+                textMetricsParams = tipView.getTextMetricsParams();
+            }
+            return new Request(toolTip.getMessage(), new TextPaint(tipView.getPaint()),
+                    toolTip.getTextAppearanceStyle(), toolTip.getTypeface(), tipView.getGravity(),
+                    getBreakStrategy(tipView), getHyphenationFrequency(tipView), textWidth,
+                    textMetricsParams);
+        }
+
+        /**
+         * Build and cache the layout, safe to call off the main thread
+         */
+        @WorkerThread
+        void prepare() {
+            CharSequence text = getCacheableText(mText);
+            if (text == null) {
+                return;
+            }
+            Key key = new Key();
+            key.set(text, mTextAppearanceStyle, mTypeface, mPaint, mGravity, mBreakStrategy,
+                    mHyphenationFrequency, mTextWidth, false);
+            if (sLayouts.get(key) != null) {
+                return;
+            }
+
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+                // shaping is the expensive part, the layout below reuses the measured runs
+                text = PrecomputedText.create(text, (PrecomputedText.Params) mTextMetricsParams);
+            }
+            sLayouts.put(key, build(text, mPaint, mGravity, mBreakStrategy, mHyphenationFrequency,
+                    mTextWidth, false));
+        }
+    }
+
+    private static Layout build(CharSequence text, TextPaint paint, int gravity, int breakStrategy,
+                                int hyphenationFrequency, int textWidth, boolean exact) {
+        Layout.Alignment alignment = getAlignment(gravity);
+
+        // single line messages need no line breaking
+        BoringLayout.Metrics boring = BoringLayout.isBoring(text, paint);
+        if (boring != null && boring.width <= textWidth) {
+            return BoringLayout.make(text, paint, exact ? textWidth : boring.width,
+                    alignment, 1f, 0f, boring, true);
+        }
+
+        int width = textWidth;
+        if (!exact) {
+            int desiredWidth = (int) Math.ceil(Layout.getDesiredWidth(text, paint));
+            width = Math.min(desiredWidth, textWidth);
+        }
+        width = Math.max(width, 0);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            // wraps as TextView would, the constructor below has no break strategy or hyphenation
+            return StaticLayout.Builder.obtain(text, 0, text.length(), paint, width)
+                    .setAlignment(alignment)
+                    .setBreakStrategy(breakStrategy)
+                    .setHyphenationFrequency(hyphenationFrequency)
+                    .build();
+        }
+        return new StaticLayout(text, paint, width, alignment, 1f, 0f, true);
+    }
+
+    private static Layout.Alignment getAlignment(int gravity) {
+        switch (gravity & Gravity.RELATIVE_HORIZONTAL_GRAVITY_MASK) {
+            case Gravity.CENTER_HORIZONTAL:
+                return Layout.Alignment.ALIGN_CENTER;
+            case Gravity.END:
+            case Gravity.RIGHT:
+                return Layout.Alignment.ALIGN_OPPOSITE;
+            default:
+                return Layout.Alignment.ALIGN_NORMAL;
+        }
+    }
+
+    static void clear() {
+        sLayouts.evictAll();
+    }
+
+    private static final class Key {
+        CharSequence text;
+        int textAppearanceStyle;
+        Typeface typeface;
+        float textSize;
+        // paint settings a text appearance may set besides its style
+        Locale textLocale;
+        float letterSpacing;
+        String fontFeatureSettings;
+        int gravity;
+        int breakStrategy;
+        int hyphenationFrequency;
+        int textWidth;
+        boolean exact;
+
+        void set(CharSequence text, int textAppearanceStyle, Typeface typeface, TextPaint paint,
+                 int gravity, int breakStrategy, int hyphenationFrequency, int textWidth, boolean exact) {
+            this.text = text;
+            this.textAppearanceStyle = textAppearanceStyle;
+            this.typeface = typeface;
+            this.textSize = paint.getTextSize();
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+                this.textLocale = paint.getTextLocale();
+            }
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+                this.letterSpacing = paint.getLetterSpacing();
+                this.fontFeatureSettings = paint.getFontFeatureSettings();
+            }
+            this.gravity = gravity;
+            this.breakStrategy = breakStrategy;
+            this.hyphenationFrequency = hyphenationFrequency;
+            this.textWidth = textWidth;
+            this.exact = exact;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            // only strings are cached, they compare by value
+            return textAppearanceStyle == key.textAppearanceStyle
+                    && typeface == key.typeface
+                    && textSize == key.textSize
+                    && letterSpacing == key.letterSpacing
+                    && objectsEqual(textLocale, key.textLocale)
+                    && objectsEqual(fontFeatureSettings, key.fontFeatureSettings)
+                    && gravity == key.gravity
+                    && breakStrategy == key.breakStrategy
+                    && hyphenationFrequency == key.hyphenationFrequency
+                    && textWidth == key.textWidth
+                    && exact == key.exact
+                    && text.equals(key.text);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = text.hashCode();
+            result = 31 * result + textAppearanceStyle;
+            result = 31 * result + (typeface != null ? typeface.hashCode() : 0);
+            result = 31 * result + Float.floatToIntBits(textSize);
+            result = 31 * result + (textLocale != null ? textLocale.hashCode() : 0);
+            result = 31 * result + Float.floatToIntBits(letterSpacing);
+            result = 31 * result + (fontFeatureSettings != null ? fontFeatureSettings.hashCode() : 0);
+            result = 31 * result + gravity;
+            result = 31 * result + breakStrategy;
+            result = 31 * result + hyphenationFrequency;
+            result = 31 * result + textWidth;
+            result = 31 * result + (exact ? 1 : 0);
+            return result;
+        }
+
+        private static boolean objectsEqual(Object a, Object b) {
+            return a == null ? b == null : a.equals(b);
+        }
+    }
+}
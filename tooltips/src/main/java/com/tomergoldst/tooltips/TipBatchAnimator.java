@@ -0,0 +1,97 @@
+/*
+Copyright 2016 Tomer Goldstein
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package com.tomergoldst.tooltips;
+
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.animation.ValueAnimator;
+import android.view.View;
+import android.view.animation.Interpolator;
+import android.view.animation.LinearInterpolator;
+
+import java.util.List;
+
+/**
+ * Shows or hides many tips with one animator, the same way {@link DefaultToolTipAnimator}
+ * does for a single tip. Each tip may start a fixed delay after the previous one.
+ */
+class TipBatchAnimator {
+
+    private TipBatchAnimator() {
+    }
+
+    static ValueAnimator popup(final List<View> views, long duration, long stagger) {
+        for (int i = 0; i < views.size(); i++) {
+            View view = views.get(i);
+            view.setAlpha(0);
+            view.setScaleX(0);
+            view.setScaleY(0);
+            view.setVisibility(View.VISIBLE);
+        }
+        return create(views, duration, stagger, DefaultToolTipAnimator.POPUP_INTERPOLATOR, false);
+    }
+
+    static ValueAnimator popout(final List<View> views, long duration, long stagger,
+                                final AnimatorListenerAdapter animatorListenerAdapter) {
+        ValueAnimator popout = create(views, duration, stagger, DefaultToolTipAnimator.POPOUT_INTERPOLATOR, true);
+        popout.addListener(new AnimatorListenerAdapter() {
+            @Override
+            public void onAnimationEnd(Animator animation) {
+                super.onAnimationEnd(animation);
+                for (int i = 0; i < views.size(); i++) {
+                    views.get(i).setVisibility(View.GONE);
+                }
+                if (animatorListenerAdapter != null) {
+                    animatorListenerAdapter.onAnimationEnd(animation);
+                }
+            }
+        });
+        return popout;
+    }
+
+    private static ValueAnimator create(final List<View> views, final long duration, final long stagger,
+                                        final Interpolator interpolator, final boolean reverse) {
+        final long totalDuration = duration + stagger * Math.max(views.size() - 1, 0);
+        ValueAnimator animator = ValueAnimator.ofFloat(0f, 1f);
+        animator.setDuration(totalDuration);
+        // the interpolator is applied per tip, on its own part of the timeline
+        animator.setInterpolator(new LinearInterpolator());
+        animator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+            @Override
+            public void onAnimationUpdate(ValueAnimator animation) {
+                float playTime = animation.getAnimatedFraction() * totalDuration;
+                for (int i = 0; i < views.size(); i++) {
+                    float fraction = duration > 0 ? (playTime - i * stagger) / duration : 1f;
+                    fraction = Math.max(0f, Math.min(fraction, 1f));
+                    float value = interpolator.getInterpolation(fraction);
+                    if (reverse) {
+                        value = 1f - value;
+                    }
+                    View view = views.get(i);
+                    view.setAlpha(value);
+                    view.setScaleX(value);
+                    view.setScaleY(value);
+                }
+            }
+        });
+        // as for a single tip, each one is faded and scaled on its own hardware layer
+        for (int i = 0; i < views.size(); i++) {
+            animator.addListener(new DefaultToolTipAnimator.HardwareLayerListener(views.get(i)));
+        }
+        return animator;
+    }
+}
@@ -0,0 +1,230 @@
+/*
+Copyright 2016 Tomer Goldstein
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package com.tomergoldst.tooltips;
+
+import android.graphics.Point;
+import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
+
+import com.tomergoldst.tooltips.core.CollisionResolver;
+import com.tomergoldst.tooltips.core.TipGrid;
+
+import java.util.ArrayList;
+
+/**
+ * Moves the tip views of a root apart with {@link CollisionResolver}. A root is resolved
+ * right before it draws after tips were shown in it, so however many tips were shown during
+ * a frame they are resolved in one pass, and never drawn overlapping.
+ */
+class TipCollisionPass {
+
+    interface Callback {
+        /**
+         * Add the tip views shown in the root, in show order
+         */
+        void collectTipViews(ViewGroup root, ArrayList<ToolTipView> out);
+
+        /**
+         * Show the tip at another position, with the matching arrow. The tip view is measured
+         * again, since the arrow side changes its padding
+         */
+        void moveToPosition(ToolTipView tipView, ToolTip toolTip, int position);
+
+        /**
+         * The tip was moved by translation
+         *
+         * @param p where the tip is now, in the coordinates tips are placed in
+         */
+        void onTipMoved(ToolTipView tipView, ToolTip toolTip, Point p);
+    }
+
+    // alternate positions by position, in order of preference
+    private static final int[] ALTERNATIVES_ABOVE = {ToolTip.POSITION_BELOW,
+            ToolTip.POSITION_RIGHT_TO, ToolTip.POSITION_LEFT_TO};
+    private static final int[] ALTERNATIVES_BELOW = {ToolTip.POSITION_ABOVE,
+            ToolTip.POSITION_RIGHT_TO, ToolTip.POSITION_LEFT_TO};
+    private static final int[] ALTERNATIVES_LEFT_TO = {ToolTip.POSITION_RIGHT_TO,
+            ToolTip.POSITION_ABOVE, ToolTip.POSITION_BELOW};
+    private static final int[] ALTERNATIVES_RIGHT_TO = {ToolTip.POSITION_LEFT_TO,
+            ToolTip.POSITION_ABOVE, ToolTip.POSITION_BELOW};
+
+    private final Callback mCallback;
+    private final CollisionResolver mResolver = new CollisionResolver(TipGrid.DEFAULT_CELL_SIZE);
+    private final ArrayList<RootPass> mPendingPasses = new ArrayList<>();
+    private final ArrayList<ToolTipView> mTipViews = new ArrayList<>();
+    private final Coordinates mRootCoordinates = new Coordinates();
+    private final Point mPoint = new Point();
+
+    TipCollisionPass(Callback callback) {
+        mCallback = callback;
+    }
+
+    /**
+     * Resolve the root before it draws next, once however often this is called until then
+     */
+    void schedule(ViewGroup root) {
+        if (findPendingPass(root) < 0) {
+            mPendingPasses.add(new RootPass(root));
+        }
+    }
+
+    void cancel(ViewGroup root) {
+        int index = findPendingPass(root);
+        if (index >= 0) {
+            mPendingPasses.remove(index).detach();
+        }
+    }
+
+    void cancelAll() {
+        for (int i = 0; i < mPendingPasses.size(); i++) {
+            mPendingPasses.get(i).detach();
+        }
+        mPendingPasses.clear();
+    }
+
+    private int findPendingPass(ViewGroup root) {
+        for (int i = 0; i < mPendingPasses.size(); i++) {
+            if (mPendingPasses.get(i).mRoot == root) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return true if a tip was moved to another position, its arrow and so its size changed
+     */
+    private boolean resolve(ViewGroup root) {
+        mTipViews.clear();
+        mCallback.collectTipViews(root, mTipViews);
+        if (mTipViews.size() < 2) {
+            mTipViews.clear();
+            return false;
+        }
+
+        // tips are compared where the root lays them out, at its padding start, plus translation
+        int width = root.getWidth();
+        int paddingLeft = root.getPaddingLeft();
+        int paddingTop = root.getPaddingTop();
+        int paddingRight = root.getPaddingRight();
+        Coordinates rootCoordinates = mRootCoordinates.set(root);
+        int originX = rootCoordinates.left - root.getScrollX();
+        int originY = rootCoordinates.top - root.getScrollY();
+        mResolver.begin(paddingLeft, paddingTop, width - paddingRight,
+                root.getHeight() - root.getPaddingBottom());
+
+        for (int i = 0; i < mTipViews.size(); i++) {
+            ToolTipView tipView = mTipViews.get(i);
+            ToolTip toolTip = tipView.getToolTip();
+            int tipWidth = tipView.getMeasuredWidth();
+            int layoutLeft = !toolTip.isRtl() ? paddingLeft : width - paddingRight - tipWidth;
+            int position = toolTip.getPosition();
+            boolean side = position == ToolTip.POSITION_LEFT_TO || position == ToolTip.POSITION_RIGHT_TO;
+            mResolver.addTip(layoutLeft + (int) tipView.getTranslationX(),
+                    paddingTop + (int) tipView.getTranslationY(), tipWidth, tipView.getMeasuredHeight(),
+                    side ? CollisionResolver.AXIS_VERTICAL : CollisionResolver.AXIS_HORIZONTAL);
+
+            int[] alternatives = getAlternatives(position);
+            for (int j = 0; alternatives != null && j < alternatives.length; j++) {
+                Point p = mPoint;
+                if (ToolTipCoordinatesFinder.getCoordinatesAt(tipView, toolTip, alternatives[j], p)) {
+                    // the translation the tip would be moved by, as the manager does
+                    int translationX = p.x - originX;
+                    mResolver.addAlternative(alternatives[j],
+                            layoutLeft + (!toolTip.isRtl() ? translationX : -translationX),
+                            paddingTop + p.y - originY);
+                }
+            }
+        }
+
+        mResolver.resolve();
+
+        boolean positionChanged = false;
+        for (int i = 0; i < mTipViews.size(); i++) {
+            if (!mResolver.isMoved(i)) {
+                continue;
+            }
+            ToolTipView tipView = mTipViews.get(i);
+            ToolTip toolTip = tipView.getToolTip();
+            int position = mResolver.getPosition(i);
+            if (position != CollisionResolver.NO_POSITION) {
+                mCallback.moveToPosition(tipView, toolTip, position);
+                positionChanged = true;
+                continue;
+            }
+            int layoutLeft = !toolTip.isRtl() ? paddingLeft : width - paddingRight - tipView.getMeasuredWidth();
+            int translationX = mResolver.getLeft(i) - layoutLeft;
+            int translationY = mResolver.getTop(i) - paddingTop;
+            tipView.setTranslationX(translationX);
+            tipView.setTranslationY(translationY);
+            mPoint.set((!toolTip.isRtl() ? translationX : -translationX) + originX,
+                    translationY + originY);
+            mCallback.onTipMoved(tipView, toolTip, mPoint);
+        }
+        mTipViews.clear();
+        return positionChanged;
+    }
+
+    private static int[] getAlternatives(int position) {
+        switch (position) {
+            case ToolTip.POSITION_ABOVE:
+                return ALTERNATIVES_ABOVE;
+            case ToolTip.POSITION_BELOW:
+                return ALTERNATIVES_BELOW;
+            case ToolTip.POSITION_LEFT_TO:
+                return ALTERNATIVES_LEFT_TO;
+            case ToolTip.POSITION_RIGHT_TO:
+                return ALTERNATIVES_RIGHT_TO;
+        }
+        return null;
+    }
+
+    /**
+     * Resolves a root on its next pre-draw, then removes itself
+     */
+    private final class RootPass implements ViewTreeObserver.OnPreDrawListener {
+
+        final ViewGroup mRoot;
+        private ViewTreeObserver mViewTreeObserver;
+
+        RootPass(ViewGroup root) {
+            mRoot = root;
+            mViewTreeObserver = root.getViewTreeObserver();
+            mViewTreeObserver.addOnPreDrawListener(this);
+        }
+
+        void detach() {
+            // the observer a listener was added to may have been merged into another one
+            if (!mViewTreeObserver.isAlive()) {
+                mViewTreeObserver = mRoot.getViewTreeObserver();
+            }
+            mViewTreeObserver.removeOnPreDrawListener(this);
+        }
+
+        @Override
+        public boolean onPreDraw() {
+            detach();
+            mPendingPasses.remove(this);
+            // a tip moved to another side was measured again with the new arrow, check the
+            // new bounds once more. moves made then are not checked again, so this always ends
+            if (resolve(mRoot)) {
+                resolve(mRoot);
+            }
+            return true;
+        }
+    }
+}
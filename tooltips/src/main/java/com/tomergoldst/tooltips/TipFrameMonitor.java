@@ -0,0 +1,137 @@
+/*
+Copyright 2016 Tomer Goldstein
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package com.tomergoldst.tooltips;
+
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.view.Choreographer;
+import android.view.Display;
+import android.view.View;
+
+import androidx.annotation.Nullable;
+
+import java.util.List;
+
+/**
+ * Counts the frames of a tip animation and the frames dropped while it runs, and times the
+ * first frame of show animations. Reports to the manager's metrics listener.
+ */
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+class TipFrameMonitor extends AnimatorListenerAdapter implements Choreographer.FrameCallback {
+
+    private static final long DEFAULT_FRAME_INTERVAL_NANOS = 1000000000L / 60;
+
+    private final ToolTipsManager.MetricsListener mListener;
+    @Nullable
+    private final View mTipView;
+    @Nullable
+    private final List<View> mShownViews;
+    private final boolean mShow;
+    private final long mFrameIntervalNanos;
+
+    private long mStartNanos;
+    private long mLastFrameNanos;
+    private int mFrames;
+    private int mDroppedFrames;
+    private boolean mRunning;
+
+    /**
+     * @param tipView the animated tip, null for tips animated together
+     * @param shownViews tips whose show metrics are reported on the first frame, or null
+     * @param show true for a show animation
+     */
+    TipFrameMonitor(ToolTipsManager.MetricsListener listener, @Nullable View tipView,
+                    @Nullable List<View> shownViews, boolean show) {
+        mListener = listener;
+        mTipView = tipView;
+        mShownViews = shownViews;
+        mShow = show;
+        mFrameIntervalNanos = getFrameIntervalNanos(tipView != null ? tipView :
+                shownViews != null && !shownViews.isEmpty() ? shownViews.get(0) : null);
+    }
+
+    private static long getFrameIntervalNanos(@Nullable View view) {
+        if (view != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            Display display = view.getDisplay();
+            if (display != null && display.getRefreshRate() > 0) {
+                return (long) (1000000000L / display.getRefreshRate());
+            }
+        }
+        return DEFAULT_FRAME_INTERVAL_NANOS;
+    }
+
+    /**
+     * Start the animator and monitor it
+     */
+    void start(Animator animator) {
+        animator.addListener(this);
+        mStartNanos = System.nanoTime();
+        mRunning = true;
+        Choreographer.getInstance().postFrameCallback(this);
+        animator.start();
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!mRunning) {
+            return;
+        }
+        if (mFrames == 0) {
+            reportShown(System.nanoTime() - mStartNanos);
+        } else {
+            // a frame interval and a half or more since the last frame means frames were missed
+            long missed = (frameTimeNanos - mLastFrameNanos + mFrameIntervalNanos / 2) / mFrameIntervalNanos - 1;
+            if (missed > 0) {
+                mDroppedFrames += missed;
+            }
+        }
+        mLastFrameNanos = frameTimeNanos;
+        mFrames++;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    @Override
+    public void onAnimationEnd(Animator animation) {
+        if (!mRunning) {
+            return;
+        }
+        mRunning = false;
+        Choreographer.getInstance().removeFrameCallback(this);
+        if (mFrames == 0) {
+            reportShown(System.nanoTime() - mStartNanos);
+        }
+        mListener.onAnimationFrames(mTipView, mShow, mFrames, mDroppedFrames);
+    }
+
+    private void reportShown(long firstFrameNanos) {
+        if (!mShow || mShownViews == null) {
+            return;
+        }
+        for (int i = 0; i < mShownViews.size(); i++) {
+            View view = mShownViews.get(i);
+            ToolTipMetrics metrics = view instanceof ToolTipView ?
+                    ((ToolTipView) view).getMetrics() : null;
+            if (metrics != null && metrics.isRecording()) {
+                metrics.setDuration(ToolTipMetrics.PHASE_FIRST_FRAME, firstFrameNanos);
+                ((ToolTipView) view).setMetrics(ToolTipMetrics.TRACE_ONLY);
+                mListener.onTipShown(view, metrics);
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+Copyright 2016 Tomer Goldstein
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package com.tomergoldst.tooltips;
+
+import android.content.Context;
+import android.graphics.Typeface;
+import android.view.ViewGroup;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.StyleRes;
+
+/**
+ * Bounded pool of dismissed tip views. Views are handed out only to tips with the same
+ * context, text appearance and typeface, so reusing one never needs restyling.
+ * The root a pooled view was shown in stays watched, so its views can be evicted
+ * once that screen is gone.
+ */
+class TipViewPool {
+
+    private final ToolTipView[] mViews;
+    // root each pooled view was last shown in, or null
+    private final ViewGroup[] mRoots;
+    private final RootDetachWatcher mRootDetachWatcher;
+    private int mSize;
+
+    TipViewPool(int maxSize, RootDetachWatcher rootDetachWatcher) {
+        mViews = new ToolTipView[maxSize];
+        mRoots = new ViewGroup[maxSize];
+        mRootDetachWatcher = rootDetachWatcher;
+    }
+
+    /**
+     * @return a pooled view styled the same way, or null if there is none
+     */
+    @Nullable
+    ToolTipView acquire(Context context, @StyleRes int textAppearanceStyle, @Nullable Typeface typeface) {
+        for (int i = mSize - 1; i >= 0; i--) {
+            ToolTipView view = mViews[i];
+            if (view.isStyledWith(context, textAppearanceStyle, typeface)) {
+                removeAt(i);
+                return view;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param root the root the view was shown in, or null
+     * @return true if the view was kept, false if the pool is full
+     */
+    boolean release(ToolTipView view, @Nullable ViewGroup root) {
+        if (mSize == mViews.length) {
+            return false;
+        }
+        for (int i = 0; i < mSize; i++) {
+            if (mViews[i] == view) {
+                return true;
+            }
+        }
+        mViews[mSize] = view;
+        mRoots[mSize] = root;
+        mSize++;
+        if (root != null) {
+            mRootDetachWatcher.add(root);
+        }
+        return true;
+    }
+
+    /**
+     * Drop the views shown in a root which left its window, and any other view of its context
+     */
+    void evict(ViewGroup root) {
+        Context context = root.getContext();
+        for (int i = mSize - 1; i >= 0; i--) {
+            if (mRoots[i] == root || mViews[i].getContext() == context) {
+                removeAt(i);
+            }
+        }
+    }
+
+    /**
+     * @return true if a pooled view was created with the context
+     */
+    boolean contains(Context context) {
+        for (int i = 0; i < mSize; i++) {
+            if (mViews[i].getContext() == context) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void clear() {
+        for (int i = mSize - 1; i >= 0; i--) {
+            removeAt(i);
+        }
+    }
+
+    private void removeAt(int index) {
+        ViewGroup root = mRoots[index];
+        mSize--;
+        mViews[index] = mViews[mSize];
+        mRoots[index] = mRoots[mSize];
+        mViews[mSize] = null;
+        mRoots[mSize] = null;
+        if (root != null) {
+            mRootDetachWatcher.remove(root);
+        }
+    }
+}
@@ -33,12 +33,20 @@ import static java.lang.annotation.RetentionPolicy.SOURCE;
 public class ToolTip {
 
     @Retention(SOURCE)
-    @IntDef({POSITION_ABOVE, POSITION_BELOW, POSITION_LEFT_TO, POSITION_RIGHT_TO})
+    @IntDef({POSITION_ABOVE, POSITION_BELOW, POSITION_LEFT_TO, POSITION_RIGHT_TO, POSITION_AUTO})
     public @interface Position {}
     public static final int POSITION_ABOVE = 0;
     public static final int POSITION_BELOW = 1;
     public static final int POSITION_LEFT_TO = 3;
     public static final int POSITION_RIGHT_TO = 4;
+    /**
+     * Use the first of above / below / left to / right to where the tip fits without being
+     * narrowed, or the order given by {@link Builder#setFallbackPositions(int...)}
+     */
+    public static final int POSITION_AUTO = 5;
+
+    private static final int[] AUTO_POSITIONS =
+            {POSITION_ABOVE, POSITION_BELOW, POSITION_LEFT_TO, POSITION_RIGHT_TO};
 
     @Retention(SOURCE)
     @IntDef({ALIGN_CENTER, ALIGN_LEFT, ALIGN_RIGHT})
@@ -55,10 +63,14 @@ public class ToolTip {
     public static final int GRAVITY_RIGHT = 2;
 
     @NonNull private final Context mContext;
-    @NonNull private final View mAnchorView;
+    @NonNull private View mAnchorView;
     @NonNull private final ViewGroup mRootViewGroup;
     @NonNull private final CharSequence mMessage;
+    // the position asked for, and where the current show put the tip
+    private @Position int mRequestedPosition;
     private @Position int mPosition;
+    // resolved from the root view on each show
+    private boolean mRtl;
     private final @Align int mAlign;
     private final int mOffsetX;
     private final int mOffsetY;
@@ -69,12 +81,23 @@ public class ToolTip {
     private final @StyleRes int mTextAppearanceStyle;
     @Nullable private final Typeface mTypeface;
     private final int mMaxWidth;
+    private final int mCornerRadius;
+    private final int mArrowWidth;
+    private final int mArrowHeight;
+    private final boolean mLegacyBackground;
+    @Nullable private final int[] mCandidatePositions;
+    private final boolean mTrackAnchor;
+    @Nullable
+    private final Object mGroup;
+    @Nullable
+    private final String mSeenKey;
 
     public ToolTip(Builder builder){
         mContext = builder.mContext;
         mAnchorView = builder.mAnchorView;
         mRootViewGroup = builder.mRootViewGroup;
         mMessage = builder.mMessage;
+        mRequestedPosition = builder.mPosition;
         mPosition = builder.mPosition;
         mAlign = builder.mAlign;
         mOffsetX = builder.mOffsetX;
@@ -86,6 +109,29 @@ public class ToolTip {
         mTextAppearanceStyle = builder.mTextAppearanceStyle;
         mTypeface = builder.mTypeface;
         mMaxWidth = builder.mMaxWidth;
+        mCornerRadius = builder.mCornerRadius;
+        mArrowWidth = builder.mArrowWidth;
+        mArrowHeight = builder.mArrowHeight;
+        mLegacyBackground = builder.mLegacyBackground;
+        mCandidatePositions = getCandidatePositions(builder.mPosition, builder.mFallbackPositions);
+        mTrackAnchor = builder.mTrackAnchor;
+        mGroup = builder.mGroup;
+        mSeenKey = builder.mSeenKey;
+    }
+
+    @Nullable
+    private static int[] getCandidatePositions(@Position int position, @Nullable int[] fallbackPositions) {
+        if (position == POSITION_AUTO) {
+            return fallbackPositions != null && fallbackPositions.length > 0 ?
+                    fallbackPositions.clone() : AUTO_POSITIONS.clone();
+        }
+        if (fallbackPositions == null || fallbackPositions.length == 0) {
+            return null;
+        }
+        int[] candidates = new int[fallbackPositions.length + 1];
+        candidates[0] = position;
+        System.arraycopy(fallbackPositions, 0, candidates, 1, fallbackPositions.length);
+        return candidates;
     }
 
     @NonNull
@@ -108,6 +154,10 @@ public class ToolTip {
         return mMessage;
     }
 
+    /**
+     * @return the position the tip is shown at, which differs from the position asked for
+     * when a fallback position was taken or sides were swapped for a right-to-left layout
+     */
     public int getPosition() {
         return mPosition;
     }
@@ -161,9 +211,39 @@ public class ToolTip {
     }
 
     public void setPosition(@Position int position){
+        mRequestedPosition = position;
         mPosition = position;
     }
 
+    /**
+     * Start a show from the position asked for, or the first candidate position
+     */
+    void resetShownPosition() {
+        mPosition = mCandidatePositions != null ? mCandidatePositions[0] : mRequestedPosition;
+    }
+
+    /**
+     * Set where this show puts the tip, keeping the position asked for
+     */
+    void setShownPosition(@Position int position) {
+        mPosition = position;
+    }
+
+    boolean isRtl() {
+        return mRtl;
+    }
+
+    void setRtl(boolean rtl) {
+        mRtl = rtl;
+    }
+
+    /**
+     * Point the tip at another view, e.g. the view a list item is bound to now
+     */
+    void setAnchorView(@NonNull View anchorView) {
+        mAnchorView = anchorView;
+    }
+
     public float getElevation() {
         return mElevation;
     }
@@ -199,6 +279,44 @@ public class ToolTip {
         return mMaxWidth;
     }
 
+    public int getCornerRadius() {
+        return mCornerRadius;
+    }
+
+    public int getArrowWidth() {
+        return mArrowWidth;
+    }
+
+    public int getArrowHeight() {
+        return mArrowHeight;
+    }
+
+    public boolean usesLegacyBackground() {
+        return mLegacyBackground;
+    }
+
+    public boolean tracksAnchor() {
+        return mTrackAnchor;
+    }
+
+    @Nullable
+    public Object getGroup() {
+        return mGroup;
+    }
+
+    @Nullable
+    public String getSeenKey() {
+        return mSeenKey;
+    }
+
+    /**
+     * @return positions to try in order, or null if the tip goes where it was asked to
+     */
+    @Nullable
+    int[] getCandidatePositions() {
+        return mCandidatePositions;
+    }
+
     public static class Builder {
         private final @NonNull Context mContext;
         private final @NonNull View mAnchorView;
@@ -215,6 +333,14 @@ public class ToolTip {
         private @StyleRes int mTextAppearanceStyle;
         private @Nullable Typeface mTypeface;
         private int mMaxWidth;
+        private int mCornerRadius;
+        private int mArrowWidth;
+        private int mArrowHeight;
+        private boolean mLegacyBackground;
+        private @Nullable int[] mFallbackPositions;
+        private boolean mTrackAnchor;
+        private Object mGroup;
+        private String mSeenKey;
 
         /**
          * Creates the tooltip builder with message and required parameters to show tooltip.
@@ -223,7 +349,8 @@ public class ToolTip {
          * @param anchorView the view which near it we want to put the tip
          * @param root a class extends ViewGroup which the created tip view will be added to
          * @param message message to show. Note: This allows normal text and spannable text with spanned styles.
-         * @param position  put the tip above / below / left to / right to anchor view.
+         * @param position  put the tip above / below / left to / right to anchor view,
+         *                  or {@link #POSITION_AUTO} to put it where it fits.
          */
         public Builder(@NonNull Context context,
                        @NonNull View anchorView,
@@ -243,6 +370,10 @@ public class ToolTip {
             mTextGravity = GRAVITY_LEFT;
             mTextAppearanceStyle = R.style.TooltipDefaultStyle;
             mMaxWidth = 0;
+            mCornerRadius = context.getResources().getDimensionPixelSize(R.dimen.tooltip_corner_radius);
+            mArrowWidth = context.getResources().getDimensionPixelSize(R.dimen.tooltip_arrow_width);
+            mArrowHeight = context.getResources().getDimensionPixelSize(R.dimen.tooltip_arrow_height);
+            mLegacyBackground = false;
         }
 
         @NonNull
@@ -251,6 +382,24 @@ public class ToolTip {
             return this;
         }
 
+        /**
+         * @param positions positions to try in order when the tip does not fit in the
+         *                  requested one without being narrowed. With {@link #POSITION_AUTO}
+         *                  these replace the default order. Must not contain
+         *                  {@link #POSITION_AUTO} itself
+         * @return builder
+         */
+        @NonNull
+        public Builder setFallbackPositions(@Position int... positions){
+            for (int i = 0; positions != null && i < positions.length; i++) {
+                if (positions[i] == POSITION_AUTO) {
+                    throw new IllegalArgumentException("POSITION_AUTO is not a fallback position");
+                }
+            }
+            mFallbackPositions = positions;
+            return this;
+        }
+
         @NonNull
         public Builder setAlign(@Align int align){
             mAlign = align;
@@ -318,6 +467,63 @@ public class ToolTip {
             return this;
         }
 
+        @NonNull
+        public Builder setCornerRadius(int radiusPixels){
+            mCornerRadius = radiusPixels;
+            return this;
+        }
+
+        @NonNull
+        public Builder setArrowSize(int widthPixels, int heightPixels){
+            mArrowWidth = widthPixels;
+            mArrowHeight = heightPixels;
+            return this;
+        }
+
+        /**
+         * @param value true to use the bundled nine-patch backgrounds instead of the drawn
+         *              bubble. Corner radius and arrow size are ignored in that case
+         * @return builder
+         */
+        @NonNull
+        public Builder useLegacyBackground(boolean value){
+            mLegacyBackground = value;
+            return this;
+        }
+
+        /**
+         * @param value true to keep the tip next to the anchor view when the anchor scrolls,
+         *              animates or is laid out again while the tip is shown
+         * @return builder
+         */
+        @NonNull
+        public Builder setTrackAnchor(boolean value){
+            mTrackAnchor = value;
+            return this;
+        }
+
+        /**
+         * @param group tag shared by tips dismissed together, see
+         *              {@link ToolTipsManager#dismissGroup(Object)}
+         * @return builder
+         */
+        @NonNull
+        public Builder setGroup(@Nullable Object group){
+            mGroup = group;
+            return this;
+        }
+
+        /**
+         * @param seenKey key the tip is remembered by once dismissed, a tip already dismissed
+         *                is not shown again, see {@link ToolTipsManager#setSeenTipsStore(SeenTipsStore)}
+         * @return builder
+         */
+        @NonNull
+        public Builder setSeenKey(@Nullable String seenKey){
+            mSeenKey = seenKey;
+            return this;
+        }
+
         @NonNull
         public ToolTip build(){
             return new ToolTip(this);
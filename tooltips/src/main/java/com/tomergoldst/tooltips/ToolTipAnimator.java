@@ -1,24 +1,24 @@
 package com.tomergoldst.tooltips;
 
+import android.animation.Animator;
 import android.animation.AnimatorListenerAdapter;
-import android.animation.ObjectAnimator;
 import android.view.View;
 
 public interface ToolTipAnimator {
     /**
-     * Object animator for the tooltip view to pop-up.
+     * Animator for the tooltip view to pop-up.
      * @param view The tooltip view.
      * @param duration Duration for the animator.
-     * @return ObjectAnimator
+     * @return Animator, e.g. an ObjectAnimator or an AnimatorSet
      */
-    ObjectAnimator popup(final View view, final long duration);
+    Animator popup(final View view, final long duration);
 
     /**
-     * Object animator for the tooltip view to pop-out/hide.
+     * Animator for the tooltip view to pop-out/hide.
      * @param view The tooltip view.
      * @param duration Duration for the animator.
      * @param animatorListenerAdapter The animator listener adapter to listen for animation event.
-     * @return ObjectAnimator
+     * @return Animator, e.g. an ObjectAnimator or an AnimatorSet
      */
-    ObjectAnimator popout(final View view, final long duration, final AnimatorListenerAdapter animatorListenerAdapter);
+    Animator popout(final View view, final long duration, final AnimatorListenerAdapter animatorListenerAdapter);
 }
@@ -17,102 +17,138 @@ limitations under the License.
 package com.tomergoldst.tooltips;
 
 import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
 import android.graphics.PorterDuff;
 import android.graphics.drawable.Drawable;
 import android.os.Build;
+import android.util.LruCache;
 import android.view.View;
 
+import com.tomergoldst.tooltips.core.BackgroundSelector;
+
 class ToolTipBackgroundConstructor {
 
+    private static final int MAX_CACHED_BACKGROUNDS = 16;
+
+    // Tinted backgrounds keyed by drawable resource and color. The resource already
+    // reflects the RTL side. Only constant states are kept, so the cache holds the
+    // decoded nine-patches but no view or context
+    private static final LruCache<Long, Drawable.ConstantState> sTintedBackgrounds =
+            new LruCache<>(MAX_CACHED_BACKGROUNDS);
+    private static int sCachedDensityDpi;
+
+    // Nine-patch backgrounds by BackgroundSelector arrow value
+    private static final int[] LEGACY_BACKGROUNDS = new int[BackgroundSelector.ARROW_COUNT];
+    static {
+        LEGACY_BACKGROUNDS[BackgroundSelector.NO_ARROW] = R.drawable.tooltip_no_arrow;
+        LEGACY_BACKGROUNDS[BackgroundSelector.ARROW_DOWN] = R.drawable.tooltip_arrow_down;
+        LEGACY_BACKGROUNDS[BackgroundSelector.ARROW_DOWN_LEFT] = R.drawable.tooltip_arrow_down_left;
+        LEGACY_BACKGROUNDS[BackgroundSelector.ARROW_DOWN_RIGHT] = R.drawable.tooltip_arrow_down_right;
+        LEGACY_BACKGROUNDS[BackgroundSelector.ARROW_UP] = R.drawable.tooltip_arrow_up;
+        LEGACY_BACKGROUNDS[BackgroundSelector.ARROW_UP_LEFT] = R.drawable.tooltip_arrow_up_left;
+        LEGACY_BACKGROUNDS[BackgroundSelector.ARROW_UP_RIGHT] = R.drawable.tooltip_arrow_up_right;
+        LEGACY_BACKGROUNDS[BackgroundSelector.ARROW_LEFT] = R.drawable.tooltip_arrow_left;
+        LEGACY_BACKGROUNDS[BackgroundSelector.ARROW_RIGHT] = R.drawable.tooltip_arrow_right;
+    }
+
     /**
      * Select which background will be assign to the tip view
      */
     static void setBackground(View tipView, ToolTip toolTip) {
+        int arrow = BackgroundSelector.select(toolTip.getPosition(), toolTip.getAlign(),
+                !toolTip.hideArrow(), toolTip.isRtl());
 
-        // show tool tip without arrow. no need to continue
-        if (toolTip.hideArrow()) {
-            setToolTipNoArrowBackground(tipView, toolTip.getBackgroundColor());
-            return;
+        if (toolTip.usesLegacyBackground()) {
+            setTipBackground(tipView, LEGACY_BACKGROUNDS[arrow], toolTip.getBackgroundColor());
+        } else {
+            setToolTipDrawableBackground(tipView, toolTip, arrow);
         }
+    }
 
-        // show tool tip according to requested position
-        switch (toolTip.getPosition()) {
-            case ToolTip.POSITION_ABOVE:
-                setToolTipAboveBackground(tipView, toolTip);
+    private static void setToolTipDrawableBackground(View tipView, ToolTip toolTip, int arrow) {
+        Resources resources = tipView.getResources();
+        int paddingHorizontal = resources.getDimensionPixelSize(R.dimen.tooltip_padding_horizontal);
+        int paddingVertical = resources.getDimensionPixelSize(R.dimen.tooltip_padding_vertical);
+
+        // a recycled tip view keeps its drawable, reuse it when the shape matches
+        ToolTipDrawable drawable;
+        Drawable background = tipView.getBackground();
+        if (background instanceof ToolTipDrawable && ((ToolTipDrawable) background).hasShape(
+                toolTip.getCornerRadius(), toolTip.getArrowWidth(), toolTip.getArrowHeight(),
+                paddingHorizontal, paddingVertical)) {
+            drawable = (ToolTipDrawable) background;
+            drawable.reset(toolTip.getBackgroundColor());
+            // the view only takes the padding of the arrow side when its background is set
+            setViewBackground(tipView, null);
+        } else {
+            drawable = new ToolTipDrawable(toolTip.getBackgroundColor(),
+                    toolTip.getCornerRadius(), toolTip.getArrowWidth(), toolTip.getArrowHeight(),
+                    paddingHorizontal, paddingVertical);
+        }
+        switch (arrow) {
+            case BackgroundSelector.ARROW_DOWN:
+                drawable.setArrow(ToolTipDrawable.ARROW_BOTTOM, ToolTipDrawable.ARROW_GRAVITY_CENTER);
                 break;
-            case ToolTip.POSITION_BELOW:
-                setToolTipBelowBackground(tipView, toolTip);
+            case BackgroundSelector.ARROW_DOWN_LEFT:
+                drawable.setArrow(ToolTipDrawable.ARROW_BOTTOM, ToolTipDrawable.ARROW_GRAVITY_START);
                 break;
-            case ToolTip.POSITION_LEFT_TO:
-                setToolTipLeftToBackground(tipView, toolTip.getBackgroundColor());
+            case BackgroundSelector.ARROW_DOWN_RIGHT:
+                drawable.setArrow(ToolTipDrawable.ARROW_BOTTOM, ToolTipDrawable.ARROW_GRAVITY_END);
                 break;
-            case ToolTip.POSITION_RIGHT_TO:
-                setToolTipRightToBackground(tipView, toolTip.getBackgroundColor());
+            case BackgroundSelector.ARROW_UP:
+                drawable.setArrow(ToolTipDrawable.ARROW_TOP, ToolTipDrawable.ARROW_GRAVITY_CENTER);
                 break;
-        }
-
-    }
-
-    private static void setToolTipAboveBackground(View tipView, ToolTip toolTip) {
-        switch (toolTip.getAlign()) {
-            case ToolTip.ALIGN_CENTER:
-                setTipBackground(tipView, R.drawable.tooltip_arrow_down, toolTip.getBackgroundColor());
+            case BackgroundSelector.ARROW_UP_LEFT:
+                drawable.setArrow(ToolTipDrawable.ARROW_TOP, ToolTipDrawable.ARROW_GRAVITY_START);
                 break;
-            case ToolTip.ALIGN_LEFT:
-                setTipBackground(tipView,
-                        !UiUtils.isRtl() ?
-                                R.drawable.tooltip_arrow_down_left :
-                                R.drawable.tooltip_arrow_down_right
-                        , toolTip.getBackgroundColor());
+            case BackgroundSelector.ARROW_UP_RIGHT:
+                drawable.setArrow(ToolTipDrawable.ARROW_TOP, ToolTipDrawable.ARROW_GRAVITY_END);
                 break;
-            case ToolTip.ALIGN_RIGHT:
-                setTipBackground(tipView,
-                        !UiUtils.isRtl() ?
-                                R.drawable.tooltip_arrow_down_right :
-                                R.drawable.tooltip_arrow_down_left
-                        , toolTip.getBackgroundColor());
+            case BackgroundSelector.ARROW_LEFT:
+                drawable.setArrow(ToolTipDrawable.ARROW_LEFT, ToolTipDrawable.ARROW_GRAVITY_CENTER);
                 break;
-        }
-    }
-
-    private static void setToolTipBelowBackground(View tipView, ToolTip toolTip) {
-
-        switch (toolTip.getAlign()) {
-            case ToolTip.ALIGN_CENTER:
-                setTipBackground(tipView, R.drawable.tooltip_arrow_up, toolTip.getBackgroundColor());
-                break;
-            case ToolTip.ALIGN_LEFT:
-                setTipBackground(tipView,
-                        !UiUtils.isRtl() ?
-                                R.drawable.tooltip_arrow_up_left :
-                                R.drawable.tooltip_arrow_up_right
-                        , toolTip.getBackgroundColor());
-                break;
-            case ToolTip.ALIGN_RIGHT:
-                setTipBackground(tipView,
-                        !UiUtils.isRtl() ?
-                                R.drawable.tooltip_arrow_up_right :
-                                R.drawable.tooltip_arrow_up_left
-                        , toolTip.getBackgroundColor());
+            case BackgroundSelector.ARROW_RIGHT:
+                drawable.setArrow(ToolTipDrawable.ARROW_RIGHT, ToolTipDrawable.ARROW_GRAVITY_CENTER);
                 break;
         }
-
+        setViewBackground(tipView, drawable);
     }
 
-    private static void setToolTipLeftToBackground(View tipView, int color) {
-        setTipBackground(tipView, !UiUtils.isRtl() ?
-                        R.drawable.tooltip_arrow_right : R.drawable.tooltip_arrow_left,
-                color);
-    }
-
-    private static void setToolTipRightToBackground(View tipView, int color) {
-        setTipBackground(tipView, !UiUtils.isRtl() ?
-                        R.drawable.tooltip_arrow_left : R.drawable.tooltip_arrow_right,
-                color);
+    /**
+     * Load what the backgrounds of tips in this color need ahead of the first show.
+     * May run on any thread.
+     */
+    static void preload(Context context, int color, boolean legacy) {
+        if (legacy) {
+            // decoded nine-patches are cached by drawable and color
+            for (int drawableRes : LEGACY_BACKGROUNDS) {
+                getTintedDrawable(context, drawableRes, color);
+            }
+            return;
+        }
+        Resources resources = context.getResources();
+        ToolTipDrawable drawable = new ToolTipDrawable(color,
+                resources.getDimensionPixelSize(R.dimen.tooltip_corner_radius),
+                resources.getDimensionPixelSize(R.dimen.tooltip_arrow_width),
+                resources.getDimensionPixelSize(R.dimen.tooltip_arrow_height),
+                resources.getDimensionPixelSize(R.dimen.tooltip_padding_horizontal),
+                resources.getDimensionPixelSize(R.dimen.tooltip_padding_vertical));
+        drawable.setArrow(ToolTipDrawable.ARROW_BOTTOM, ToolTipDrawable.ARROW_GRAVITY_CENTER);
+        drawable.setBounds(0, 0, resources.getDisplayMetrics().widthPixels / 2,
+                resources.getDisplayMetrics().heightPixels / 8);
+        // drawing builds the path and runs the path rasterizer, a single pixel is enough for that
+        Bitmap bitmap = Bitmap.createBitmap(1, 1, Bitmap.Config.ARGB_8888);
+        drawable.draw(new Canvas(bitmap));
+        bitmap.recycle();
     }
 
-    private static void setToolTipNoArrowBackground(View tipView, int color) {
-        setTipBackground(tipView, R.drawable.tooltip_no_arrow, color);
+    /**
+     * Detach the background from the view, e.g. when it is drawn somewhere else now
+     */
+    static void clearBackground(View tipView) {
+        setViewBackground(tipView, null);
     }
 
     private static void setTipBackground(View tipView, int drawableRes, int color){
@@ -130,19 +166,48 @@ class ToolTipBackgroundConstructor {
     }
 
     private static Drawable getTintedDrawable(Context context, int drawableRes, int color){
+        Resources resources = context.getResources();
+        long key = ((long) drawableRes << 32) | (color & 0xFFFFFFFFL);
+
+        synchronized (sTintedBackgrounds) {
+            // nine-patches were decoded for a specific density, drop them when it changes
+            int densityDpi = resources.getDisplayMetrics().densityDpi;
+            if (densityDpi != sCachedDensityDpi) {
+                sTintedBackgrounds.evictAll();
+                sCachedDensityDpi = densityDpi;
+            }
+        }
+
+        Drawable.ConstantState cachedState = sTintedBackgrounds.get(key);
+        if (cachedState != null) {
+            Drawable drawable = cachedState.newDrawable(resources).mutate();
+            if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
+                // color filter is not part of the constant state before lollipop
+                drawable.setColorFilter(color, PorterDuff.Mode.SRC_ATOP);
+            }
+            return drawable;
+        }
+
         Drawable drawable;
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-            drawable = context.getResources().getDrawable(drawableRes, null);
+            drawable = resources.getDrawable(drawableRes, null);
             if (drawable != null) {
+                // mutate so the tint is not shared with other users of this resource
+                drawable = drawable.mutate();
                 drawable.setTint(color);
             }
         } else {
-            drawable = context.getResources().getDrawable(drawableRes);
+            drawable = resources.getDrawable(drawableRes);
             if (drawable != null) {
+                drawable = drawable.mutate();
                 drawable.setColorFilter(color, PorterDuff.Mode.SRC_ATOP);
             }
         }
 
+        if (drawable != null && drawable.getConstantState() != null) {
+            sTintedBackgrounds.put(key, drawable.getConstantState());
+        }
+
         return drawable;
     }
 
@@ -21,205 +21,107 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 
+import com.tomergoldst.tooltips.core.Placement;
+import com.tomergoldst.tooltips.core.PlacementEngine;
+import com.tomergoldst.tooltips.core.PlacementSpec;
+import com.tomergoldst.tooltips.core.TipMeasurer;
+
+/**
+ * Feeds the views of a tip into {@link PlacementEngine}, which holds the placement math.
+ */
 class ToolTipCoordinatesFinder {
 
+    // scratch objects, tips are only placed on the main thread
+    private static final PlacementSpec sSpec = new PlacementSpec();
+    private static final Placement sPlacement = new Placement();
+    private static final Coordinates sAnchorCoordinates = new Coordinates();
+    private static final Coordinates sRootCoordinates = new Coordinates();
+    private static final FixedWidthMeasurer sMeasurer = new FixedWidthMeasurer();
+
     /**
      * return the top left coordinates for positioning the tip
      * 
-     * @param tipView - the newly created tip view
+     * @param tipView - the newly created tip view, measured
      * @param tooltip - tool tip object
-     * @return point
+     * @param out - point to set to the coordinates
      */
-    static Point getCoordinates(final TextView tipView, ToolTip tooltip) {
-        Point point = new Point();
-        final Coordinates anchorViewCoordinates = new Coordinates(tooltip.getAnchorView());
-        final Coordinates rootCoordinates = new Coordinates(tooltip.getRootView());
-
-        tipView.measure(ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT);
-
-        switch (tooltip.getPosition()) {
-            case ToolTip.POSITION_ABOVE:
-                point = getPositionAbove(tipView, tooltip,
-                        anchorViewCoordinates, rootCoordinates);
-                break;
-            case ToolTip.POSITION_BELOW:
-                point = getPositionBelow(tipView, tooltip,
-                        anchorViewCoordinates, rootCoordinates);
-                break;
-            case ToolTip.POSITION_LEFT_TO:
-                point = getPositionLeftTo(tipView, tooltip,
-                        anchorViewCoordinates, rootCoordinates);
-                break;
-            case ToolTip.POSITION_RIGHT_TO:
-                point = getPositionRightTo(tipView, tooltip,
-                        anchorViewCoordinates, rootCoordinates);
-                break;
-        }
-
-        // add user defined offset values
-        point.x += UiUtils.isRtl() ? -tooltip.getOffsetX() : tooltip.getOffsetX();
-        point.y += tooltip.getOffsetY();
-
-        // coordinates retrieved are relative to 0,0 of the root layout
-        // added view to root is subject to root padding
-        // we need to subtract the top and left padding of root from coordinates. to adjust
-        // top left tip coordinates
-        point.x -= tooltip.getRootView().getPaddingLeft();
-        point.y -= tooltip.getRootView().getPaddingTop();
-
-        return point;
-
+    static void getCoordinates(final TextView tipView, ToolTip tooltip, Point out) {
+        PlacementSpec spec = createPlacementSpec(tooltip);
+        sMeasurer.mTipView = tipView;
+        PlacementEngine.place(spec, tipView.getMeasuredWidth(), tipView.getMeasuredHeight(),
+                sMeasurer, sPlacement);
+        sMeasurer.mTipView = null;
+
+        out.set(sPlacement.x, sPlacement.y);
     }
 
-    private static Point getPositionRightTo(TextView tipView, ToolTip toolTip, Coordinates anchorViewCoordinates, Coordinates rootLocation) {
-        Point point = new Point();
-        point.x = anchorViewCoordinates.right;
-        AdjustRightToOutOfBounds(tipView, toolTip.getRootView(), point, anchorViewCoordinates, rootLocation);
-        point.y = anchorViewCoordinates.top + getYCenteringOffset(tipView, toolTip);
-        return point;
-    }
-
-    private static Point getPositionLeftTo(TextView tipView, ToolTip toolTip, Coordinates anchorViewCoordinates, Coordinates rootLocation) {
-        Point point = new Point();
-        point.x = anchorViewCoordinates.left - tipView.getMeasuredWidth();
-        AdjustLeftToOutOfBounds(tipView, toolTip.getRootView(), point, anchorViewCoordinates, rootLocation);
-        point.y = anchorViewCoordinates.top + getYCenteringOffset(tipView, toolTip);
-        return point;
-    }
-
-    private static Point getPositionBelow(TextView tipView, ToolTip toolTip, Coordinates anchorViewCoordinates, Coordinates rootLocation) {
-        Point point = new Point();
-        point.x = anchorViewCoordinates.left + getXOffset(tipView, toolTip);
-        if (toolTip.alignedCenter()) {
-            AdjustHorizontalCenteredOutOfBounds(tipView, toolTip.getRootView(), point, rootLocation);
-        } else if (toolTip.alignedLeft()){
-            AdjustHorizontalLeftAlignmentOutOfBounds(tipView, toolTip.getRootView(), point, anchorViewCoordinates, rootLocation);
-        } else if (toolTip.alignedRight()){
-            AdjustHorizotalRightAlignmentOutOfBounds(tipView, toolTip.getRootView(), point, anchorViewCoordinates, rootLocation);
-        }
-        point.y = anchorViewCoordinates.bottom;
-        return point;
+    /**
+     * Pick the first position the tip fits in without being narrowed
+     *
+     * @param tipView - the newly created tip view, measured
+     * @param tooltip - tool tip object
+     * @param positions - positions to try in order
+     * @return position
+     */
+    static int findBestFitPosition(final TextView tipView, ToolTip tooltip, int[] positions) {
+        return PlacementEngine.selectPosition(createPlacementSpec(tooltip), positions,
+                tipView.getMeasuredWidth(), tipView.getMeasuredHeight());
     }
 
-    private static Point getPositionAbove(TextView tipView, ToolTip toolTip,
-                                          Coordinates anchorViewCoordinates, Coordinates rootLocation) {
-        Point point = new Point();
-        point.x = anchorViewCoordinates.left + getXOffset(tipView, toolTip);
-        if (toolTip.alignedCenter()) {
-            AdjustHorizontalCenteredOutOfBounds(tipView, toolTip.getRootView(), point, rootLocation);
-        } else if (toolTip.alignedLeft()){
-            AdjustHorizontalLeftAlignmentOutOfBounds(tipView, toolTip.getRootView(), point, anchorViewCoordinates, rootLocation);
-        } else if (toolTip.alignedRight()){
-            AdjustHorizotalRightAlignmentOutOfBounds(tipView, toolTip.getRootView(), point, anchorViewCoordinates, rootLocation);
-        }
-        point.y = anchorViewCoordinates.top - tipView.getMeasuredHeight();
-        return point;
+    /**
+     * Place a measured tip at another position, without narrowing it
+     *
+     * @param tipView - a measured tip view
+     * @param tooltip - tool tip object
+     * @param position - position to place the tip at
+     * @param out - point to set to the coordinates
+     * @return true if the tip fits in the root at that position
+     */
+    static boolean getCoordinatesAt(TextView tipView, ToolTip tooltip, int position, Point out) {
+        boolean fits = PlacementEngine.placeAt(createPlacementSpec(tooltip), position,
+                tipView.getMeasuredWidth(), tipView.getMeasuredHeight(), sPlacement);
+        out.set(sPlacement.x, sPlacement.y);
+        return fits;
     }
 
-    private static void AdjustRightToOutOfBounds(TextView tipView, ViewGroup root, Point point, Coordinates anchorViewCoordinates, Coordinates rootLocation) {
-        ViewGroup.LayoutParams params = tipView.getLayoutParams();
-        int availableSpace = rootLocation.right - root.getPaddingRight() - anchorViewCoordinates.right;
-        if (point.x + tipView.getMeasuredWidth() > rootLocation.right - root.getPaddingRight()){
-            params.width = availableSpace;
-            params.height = ViewGroup.LayoutParams.WRAP_CONTENT;
-            tipView.setLayoutParams(params);
-            measureViewWithFixedWidth(tipView, params.width);
-        }
+    private static PlacementSpec createPlacementSpec(ToolTip tooltip) {
+        final Coordinates anchorViewCoordinates = sAnchorCoordinates.set(tooltip.getAnchorView());
+        final Coordinates rootCoordinates = sRootCoordinates.set(tooltip.getRootView());
+        final ViewGroup root = tooltip.getRootView();
+
+        return sSpec
+                .setAnchor(anchorViewCoordinates.left, anchorViewCoordinates.top,
+                        anchorViewCoordinates.right, anchorViewCoordinates.bottom)
+                .setRoot(rootCoordinates.left, rootCoordinates.top,
+                        rootCoordinates.right, rootCoordinates.bottom)
+                .setRootPadding(root.getPaddingLeft(), root.getPaddingTop(),
+                        root.getPaddingRight(), root.getPaddingBottom())
+                .setPosition(tooltip.getPosition(), tooltip.getAlign())
+                .setOffset(tooltip.getOffsetX(), tooltip.getOffsetY())
+                .setRtl(tooltip.isRtl());
     }
 
-    private static void AdjustLeftToOutOfBounds(TextView tipView, ViewGroup root, Point point, Coordinates anchorViewCoordinates, Coordinates rootLocation) {
-        ViewGroup.LayoutParams params = tipView.getLayoutParams();
-        int rootLeft = rootLocation.left + root.getPaddingLeft();
-        if (point.x < rootLeft){
-            int availableSpace = anchorViewCoordinates.left - rootLeft;
-            point.x = rootLeft;
-            params.width = availableSpace;
-            params.height = ViewGroup.LayoutParams.WRAP_CONTENT;
-            tipView.setLayoutParams(params);
-            measureViewWithFixedWidth(tipView, params.width);
-        }
-    }
-
-    private static void AdjustHorizotalRightAlignmentOutOfBounds(TextView tipView, ViewGroup root,
-                                                                 Point point, Coordinates anchorViewCoordinates,
-                                                                 Coordinates rootLocation) {
-        ViewGroup.LayoutParams params = tipView.getLayoutParams();
-        int rootLeft = rootLocation.left + root.getPaddingLeft();
-        if (point.x < rootLeft){
-            int availableSpace = anchorViewCoordinates.right - rootLeft;
-            point.x = rootLeft;
-            params.width = availableSpace;
-            params.height = ViewGroup.LayoutParams.WRAP_CONTENT;
-            tipView.setLayoutParams(params);
-            measureViewWithFixedWidth(tipView, params.width);
-        }
-    }
+    /**
+     * Narrows the tip view to the width the engine asks for
+     */
+    private static class FixedWidthMeasurer implements TipMeasurer {
 
-    private static void AdjustHorizontalLeftAlignmentOutOfBounds(TextView tipView, ViewGroup root,
-                                                                 Point point, Coordinates anchorViewCoordinates,
-                                                                 Coordinates rootLocation) {
-        ViewGroup.LayoutParams params = tipView.getLayoutParams();
-        int rootRight = rootLocation.right - root.getPaddingRight();
-        if (point.x + tipView.getMeasuredWidth() > rootRight){
-            params.width = rootRight - anchorViewCoordinates.left;
-            params.height = ViewGroup.LayoutParams.WRAP_CONTENT;
-            tipView.setLayoutParams(params);
-            measureViewWithFixedWidth(tipView, params.width);
-        }
-    }
+        TextView mTipView;
 
-    private static void AdjustHorizontalCenteredOutOfBounds(TextView tipView, ViewGroup root,
-                                                            Point point, Coordinates rootLocation) {
-        ViewGroup.LayoutParams params = tipView.getLayoutParams();
-        int rootWidth = root.getWidth() - root.getPaddingLeft() - root.getPaddingRight();
-        if (tipView.getMeasuredWidth() > rootWidth) {
-            point.x = rootLocation.left + root.getPaddingLeft();
-            params.width = rootWidth;
+        @Override
+        public int measureHeight(int width) {
+            ViewGroup.LayoutParams params = mTipView.getLayoutParams();
+            params.width = width;
             params.height = ViewGroup.LayoutParams.WRAP_CONTENT;
-            tipView.setLayoutParams(params);
-            measureViewWithFixedWidth(tipView, rootWidth);
+            mTipView.setLayoutParams(params);
+            measureViewWithFixedWidth(mTipView, width);
+            return mTipView.getMeasuredHeight();
         }
     }
 
-
     private static void measureViewWithFixedWidth(TextView tipView, int width) {
         tipView.measure(View.MeasureSpec.makeMeasureSpec(width,
                 View.MeasureSpec.EXACTLY), ViewGroup.LayoutParams.WRAP_CONTENT);
     }
 
-    /**
-     * calculate the amount of movement need to be taken inorder to align tip
-     * on X axis according to "align" parameter
-     * @return int
-     */
-    private static int getXOffset(View tipView, ToolTip toolTip) {
-        int offset;
-
-        switch (toolTip.getAlign()) {
-            case ToolTip.ALIGN_CENTER:
-                offset = ((toolTip.getAnchorView().getWidth() - tipView.getMeasuredWidth()) / 2);
-                break;
-            case ToolTip.ALIGN_LEFT:
-                offset = 0;
-                break;
-            case ToolTip.ALIGN_RIGHT:
-                offset = toolTip.getAnchorView().getWidth() - tipView.getMeasuredWidth();
-                break;
-            default:
-                offset = 0;
-                break;
-        }
-
-        return offset;
-    }
-
-    /**
-     * calculate the amount of movement need to be taken inorder to center tip
-     * on Y axis
-     * @return int
-     */
-    private static int getYCenteringOffset(View tipView, ToolTip toolTip) {
-        return (toolTip.getAnchorView().getHeight() - tipView.getMeasuredHeight()) / 2;
-    }
-
 }
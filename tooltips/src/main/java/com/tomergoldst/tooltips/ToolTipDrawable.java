@@ -0,0 +1,322 @@
+/*
+Copyright 2016 Tomer Goldstein
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package com.tomergoldst.tooltips;
+
+import android.annotation.TargetApi;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Outline;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+/**
+ * Paints the tip bubble and its arrow from a single path, so it scales to any density
+ * and the arrow can be moved to point at the anchor after the tip was positioned.
+ */
+class ToolTipDrawable extends Drawable {
+
+    static final int ARROW_NONE = 0;
+    static final int ARROW_TOP = 1;
+    static final int ARROW_BOTTOM = 2;
+    static final int ARROW_LEFT = 3;
+    static final int ARROW_RIGHT = 4;
+
+    static final int ARROW_GRAVITY_CENTER = 0;
+    static final int ARROW_GRAVITY_START = 1;
+    static final int ARROW_GRAVITY_END = 2;
+
+    private static final int NO_ANCHOR = Integer.MIN_VALUE;
+
+    private final Paint mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Path mPath = new Path();
+    private final RectF mBubbleRect = new RectF();
+    private final RectF mArcRect = new RectF();
+
+    private final int mCornerRadius;
+    private final int mArrowWidth;
+    private final int mArrowHeight;
+    private final int mPaddingHorizontal;
+    private final int mPaddingVertical;
+
+    private int mArrowSide = ARROW_NONE;
+    private int mArrowGravity = ARROW_GRAVITY_CENTER;
+    private int mAnchorStart = NO_ANCHOR;
+    private int mAnchorEnd = NO_ANCHOR;
+    private boolean mPathDirty = true;
+
+    ToolTipDrawable(int color, int cornerRadius, int arrowWidth, int arrowHeight,
+                    int paddingHorizontal, int paddingVertical) {
+        mPaint.setStyle(Paint.Style.FILL);
+        mPaint.setColor(color);
+        mCornerRadius = cornerRadius;
+        mArrowWidth = arrowWidth;
+        mArrowHeight = arrowHeight;
+        mPaddingHorizontal = paddingHorizontal;
+        mPaddingVertical = paddingVertical;
+    }
+
+    /**
+     * @return true if the drawable was created with these dimensions, so it can be reused
+     */
+    boolean hasShape(int cornerRadius, int arrowWidth, int arrowHeight,
+                     int paddingHorizontal, int paddingVertical) {
+        return mCornerRadius == cornerRadius && mArrowWidth == arrowWidth
+                && mArrowHeight == arrowHeight && mPaddingHorizontal == paddingHorizontal
+                && mPaddingVertical == paddingVertical;
+    }
+
+    /**
+     * Reset color and arrow for drawing another tip of the same shape
+     */
+    void reset(int color) {
+        mPaint.setColor(color);
+        setArrow(ARROW_NONE, ARROW_GRAVITY_CENTER);
+        setArrowAnchor(NO_ANCHOR, NO_ANCHOR);
+        invalidateSelf();
+    }
+
+    /**
+     * @param side which edge of the bubble the arrow comes out of, one of the ARROW_* values
+     * @param gravity where on that edge the arrow sits until an offset is set
+     */
+    void setArrow(int side, int gravity) {
+        if (mArrowSide != side || mArrowGravity != gravity) {
+            mArrowSide = side;
+            mArrowGravity = gravity;
+            mAnchorStart = NO_ANCHOR;
+            mAnchorEnd = NO_ANCHOR;
+            invalidatePath();
+        }
+    }
+
+    int getArrowSide() {
+        return mArrowSide;
+    }
+
+    /**
+     * Set where the anchor lies along the arrow edge. The arrow keeps its gravity position
+     * while that points at the anchor, otherwise it moves to the anchor center.
+     * Positions are measured from the left (top / bottom arrow) or top (side arrow) of the bounds.
+     */
+    void setArrowAnchor(int start, int end) {
+        if (mAnchorStart != start || mAnchorEnd != end) {
+            mAnchorStart = start;
+            mAnchorEnd = end;
+            invalidatePath();
+        }
+    }
+
+    @VisibleForTesting
+    int getArrowAnchorStart() {
+        return mAnchorStart;
+    }
+
+    @VisibleForTesting
+    int getArrowAnchorEnd() {
+        return mAnchorEnd;
+    }
+
+    private void invalidatePath() {
+        mPathDirty = true;
+        invalidateSelf();
+    }
+
+    @Override
+    protected void onBoundsChange(Rect bounds) {
+        super.onBoundsChange(bounds);
+        mPathDirty = true;
+    }
+
+    @Override
+    public boolean getPadding(@NonNull Rect padding) {
+        padding.set(mPaddingHorizontal, mPaddingVertical, mPaddingHorizontal, mPaddingVertical);
+        switch (mArrowSide) {
+            case ARROW_TOP:
+                padding.top += mArrowHeight;
+                break;
+            case ARROW_BOTTOM:
+                padding.bottom += mArrowHeight;
+                break;
+            case ARROW_LEFT:
+                padding.left += mArrowHeight;
+                break;
+            case ARROW_RIGHT:
+                padding.right += mArrowHeight;
+                break;
+        }
+        return true;
+    }
+
+    @Override
+    public void draw(@NonNull Canvas canvas) {
+        if (mPathDirty) {
+            buildPath();
+        }
+        canvas.drawPath(mPath, mPaint);
+    }
+
+    @Override
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    public void getOutline(@NonNull Outline outline) {
+        if (mPathDirty) {
+            buildPath();
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            outline.setPath(mPath);
+        } else {
+            // the arrow makes the path concave, older platforms only take the bubble itself
+            outline.setRoundRect((int) mBubbleRect.left, (int) mBubbleRect.top,
+                    (int) mBubbleRect.right, (int) mBubbleRect.bottom, mCornerRadius);
+        }
+        outline.setAlpha(mPaint.getAlpha() / 255f);
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        if (mPaint.getAlpha() != alpha) {
+            mPaint.setAlpha(alpha);
+            invalidateSelf();
+        }
+    }
+
+    @Override
+    public int getAlpha() {
+        return mPaint.getAlpha();
+    }
+
+    @Override
+    public void setColorFilter(@Nullable ColorFilter colorFilter) {
+        mPaint.setColorFilter(colorFilter);
+        invalidateSelf();
+    }
+
+    @Override
+    public int getOpacity() {
+        return PixelFormat.TRANSLUCENT;
+    }
+
+    /**
+     * Trace bubble and arrow clockwise as one contour
+     */
+    private void buildPath() {
+        mPathDirty = false;
+        mPath.reset();
+
+        Rect bounds = getBounds();
+        mBubbleRect.set(bounds);
+        switch (mArrowSide) {
+            case ARROW_TOP:
+                mBubbleRect.top += mArrowHeight;
+                break;
+            case ARROW_BOTTOM:
+                mBubbleRect.bottom -= mArrowHeight;
+                break;
+            case ARROW_LEFT:
+                mBubbleRect.left += mArrowHeight;
+                break;
+            case ARROW_RIGHT:
+                mBubbleRect.right -= mArrowHeight;
+                break;
+        }
+
+        float left = mBubbleRect.left;
+        float top = mBubbleRect.top;
+        float right = mBubbleRect.right;
+        float bottom = mBubbleRect.bottom;
+        float radius = Math.min(mCornerRadius, Math.min(mBubbleRect.width(), mBubbleRect.height()) / 2);
+        float halfArrow = mArrowWidth / 2f;
+        boolean horizontalEdge = mArrowSide == ARROW_TOP || mArrowSide == ARROW_BOTTOM;
+        float arrowCenter = horizontalEdge ?
+                getArrowCenter(left, right, radius) :
+                getArrowCenter(top, bottom, radius);
+
+        mPath.moveTo(left + radius, top);
+        if (mArrowSide == ARROW_TOP) {
+            mPath.lineTo(arrowCenter - halfArrow, top);
+            mPath.lineTo(arrowCenter, bounds.top);
+            mPath.lineTo(arrowCenter + halfArrow, top);
+        }
+        mPath.lineTo(right - radius, top);
+        arcTo(right - 2 * radius, top, right, top + 2 * radius, 270);
+
+        if (mArrowSide == ARROW_RIGHT) {
+            mPath.lineTo(right, arrowCenter - halfArrow);
+            mPath.lineTo(bounds.right, arrowCenter);
+            mPath.lineTo(right, arrowCenter + halfArrow);
+        }
+        mPath.lineTo(right, bottom - radius);
+        arcTo(right - 2 * radius, bottom - 2 * radius, right, bottom, 0);
+
+        if (mArrowSide == ARROW_BOTTOM) {
+            mPath.lineTo(arrowCenter + halfArrow, bottom);
+            mPath.lineTo(arrowCenter, bounds.bottom);
+            mPath.lineTo(arrowCenter - halfArrow, bottom);
+        }
+        mPath.lineTo(left + radius, bottom);
+        arcTo(left, bottom - 2 * radius, left + 2 * radius, bottom, 90);
+
+        if (mArrowSide == ARROW_LEFT) {
+            mPath.lineTo(left, arrowCenter + halfArrow);
+            mPath.lineTo(bounds.left, arrowCenter);
+            mPath.lineTo(left, arrowCenter - halfArrow);
+        }
+        mPath.lineTo(left, top + radius);
+        arcTo(left, top, left + 2 * radius, top + 2 * radius, 180);
+        mPath.close();
+    }
+
+    private void arcTo(float left, float top, float right, float bottom, float startAngle) {
+        mArcRect.set(left, top, right, bottom);
+        mPath.arcTo(mArcRect, startAngle, 90);
+    }
+
+    /**
+     * @return the arrow center along an edge spanning start to end, kept clear of the corners
+     */
+    private float getArrowCenter(float start, float end, float radius) {
+        float min = start + radius + mArrowWidth / 2f;
+        float max = end - radius - mArrowWidth / 2f;
+        if (min >= max) {
+            return (start + end) / 2;
+        }
+
+        float center;
+        if (mArrowGravity == ARROW_GRAVITY_START) {
+            center = min;
+        } else if (mArrowGravity == ARROW_GRAVITY_END) {
+            center = max;
+        } else {
+            center = (start + end) / 2;
+        }
+
+        // the arrow edge starts where the bounds start, as the arrow is never on it
+        if (mAnchorStart != NO_ANCHOR &&
+                (center < start + mAnchorStart || center > start + mAnchorEnd)) {
+            center = start + (mAnchorStart + mAnchorEnd) / 2f;
+        }
+        return Math.max(min, Math.min(max, center));
+    }
+}
@@ -0,0 +1,212 @@
+/*
+Copyright 2016 Tomer Goldstein
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+
+package com.tomergoldst.tooltips;
+
+import android.content.Context;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
+import android.widget.FrameLayout;
+
+import androidx.annotation.Nullable;
+
+import com.tomergoldst.tooltips.core.TipGrid;
+
+/**
+ * Container for the tip views of a root, filling it. Once laid out by the root, layout
+ * requests of its children stop here: the host measures and lays out its own children right
+ * before the next frame is drawn, keeping its size, so showing or dismissing a tip does not
+ * measure the rest of the screen again.
+ * <p>
+ * Tips are laid out at the root's padding start, as if they were added to the root itself.
+ * <p>
+ * Touches are not routed through the tip views. The host keeps their bounds in a grid and
+ * resolves a touch to the tip under it, or reports a touch outside of all tips.
+ */
+class ToolTipHostLayout extends FrameLayout implements ViewTreeObserver.OnPreDrawListener,
+        ViewGroup.OnHierarchyChangeListener {
+
+    interface OnTipTouchListener {
+        void onTipClick(View tipView);
+
+        /**
+         * @return true to keep the touch from the views below
+         */
+        boolean onOutsideTouch();
+    }
+
+    private final TipGrid<View> mTipGrid = new TipGrid<>(TipGrid.DEFAULT_CELL_SIZE);
+    @Nullable
+    private OnTipTouchListener mOnTipTouchListener;
+    @Nullable
+    private View mPressedTip;
+
+    private boolean mHasLayout;
+    private boolean mInOwnLayout;
+    private boolean mOwnLayoutScheduled;
+    // the observer the pre-draw listener was added to, a detached view has another one
+    private ViewTreeObserver mViewTreeObserver;
+
+    ToolTipHostLayout(Context context) {
+        super(context);
+        // tips are moved by translation and may cast a shadow past the host bounds
+        setClipChildren(false);
+        setClipToPadding(false);
+        setOnHierarchyChangeListener(this);
+    }
+
+    /**
+     * @return the host of the root, added to it if it has none yet
+     */
+    static ToolTipHostLayout obtain(ViewGroup root) {
+        for (int i = root.getChildCount() - 1; i >= 0; i--) {
+            View child = root.getChildAt(i);
+            if (child instanceof ToolTipHostLayout) {
+                return (ToolTipHostLayout) child;
+            }
+        }
+        ToolTipHostLayout host = new ToolTipHostLayout(root.getContext());
+        root.addView(host, new ViewGroup.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+        return host;
+    }
+
+    void setOnTipTouchListener(@Nullable OnTipTouchListener listener) {
+        mOnTipTouchListener = listener;
+    }
+
+    /**
+     * Index where a positioned tip view is, call again whenever it moves
+     */
+    void indexTip(View tipView) {
+        // where the tip is laid out, at the root's padding start, plus its translation
+        ViewGroup root = (ViewGroup) getParent();
+        int left = !UiUtils.isRtl(this) ? 0 : root.getWidth() - root.getPaddingLeft()
+                - root.getPaddingRight() - tipView.getMeasuredWidth();
+        left += (int) tipView.getTranslationX();
+        int top = (int) tipView.getTranslationY();
+        mTipGrid.put(tipView, left, top,
+                left + tipView.getMeasuredWidth(), top + tipView.getMeasuredHeight());
+    }
+
+    @Override
+    public void onChildViewAdded(View parent, View child) {
+    }
+
+    @Override
+    public void onChildViewRemoved(View parent, View child) {
+        mTipGrid.remove(child);
+        if (mPressedTip == child) {
+            mPressedTip = null;
+        }
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        mTipGrid.setSize(w, h);
+    }
+
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent event) {
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                mPressedTip = findTipAt(event);
+                if (mPressedTip != null) {
+                    return true;
+                }
+                // a touch outside the tips reaches the views below unless the listener keeps it
+                return mOnTipTouchListener != null && mOnTipTouchListener.onOutsideTouch();
+            case MotionEvent.ACTION_UP:
+                View tipView = mPressedTip;
+                mPressedTip = null;
+                if (tipView != null && tipView == findTipAt(event) && mOnTipTouchListener != null) {
+                    mOnTipTouchListener.onTipClick(tipView);
+                }
+                return true;
+            case MotionEvent.ACTION_CANCEL:
+                mPressedTip = null;
+                return true;
+        }
+        // only the gestures the host took are dispatched to it
+        return true;
+    }
+
+    @Nullable
+    private View findTipAt(MotionEvent event) {
+        View tipView = mTipGrid.find((int) event.getX(), (int) event.getY());
+        // tips not shown yet or hidden take no touches
+        return tipView != null && tipView.getVisibility() == VISIBLE ? tipView : null;
+    }
+
+    @Override
+    public void requestLayout() {
+        if (!mHasLayout || mInOwnLayout || getParent() == null) {
+            super.requestLayout();
+            return;
+        }
+        // mark this host only, the parent is not asked to lay out again
+        forceLayout();
+        if (!mOwnLayoutScheduled) {
+            mOwnLayoutScheduled = true;
+            mViewTreeObserver = getViewTreeObserver();
+            mViewTreeObserver.addOnPreDrawListener(this);
+            // make sure a frame comes
+            invalidate();
+        }
+    }
+
+    @Override
+    public boolean onPreDraw() {
+        removePreDrawListener();
+        // the parent may have laid the host out in this frame already
+        if (isLayoutRequested()) {
+            mInOwnLayout = true;
+            measure(MeasureSpec.makeMeasureSpec(getWidth(), MeasureSpec.EXACTLY),
+                    MeasureSpec.makeMeasureSpec(getHeight(), MeasureSpec.EXACTLY));
+            layout(getLeft(), getTop(), getRight(), getBottom());
+            mInOwnLayout = false;
+        }
+        return true;
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        super.onLayout(changed, left, top, right, bottom);
+        mHasLayout = true;
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        removePreDrawListener();
+        // laid out by the parent again once attached
+        mHasLayout = false;
+    }
+
+    private void removePreDrawListener() {
+        if (mOwnLayoutScheduled) {
+            if (mViewTreeObserver.isAlive()) {
+                mViewTreeObserver.removeOnPreDrawListener(this);
+            }
+            mViewTreeObserver = null;
+            mOwnLayoutScheduled = false;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+Copyright 2016 Tomer Goldstein
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package com.tomergoldst.tooltips;
+
+import androidx.annotation.NonNull;
+import androidx.tracing.Trace;
+
+/**
+ * Time spent in each phase of showing a tip, reported by
+ * {@link ToolTipsManager.MetricsListener#onTipShown(android.view.View, ToolTipMetrics)}.
+ * Each phase up to placing the tip is also a trace section, named "ToolTip:" and the phase,
+ * whether a metrics listener is set or not.
+ */
+public final class ToolTipMetrics {
+
+    /** Creating a tip view, or taking one from the pool */
+    public static final int PHASE_CREATE = 0;
+    /** Text appearance, typeface, text and the rest of the tip view attributes */
+    public static final int PHASE_STYLE = 1;
+    /** Creating or tinting the background */
+    public static final int PHASE_BACKGROUND = 2;
+    /** The first measure of the tip view, which lays its text out */
+    public static final int PHASE_MEASURE = 3;
+    /** Choosing a position and moving the tip view there */
+    public static final int PHASE_PLACE = 4;
+    /** From the start of the show animation to its first frame */
+    public static final int PHASE_FIRST_FRAME = 5;
+
+    static final int PHASE_COUNT = 6;
+
+    private static final String[] SECTION_NAMES = {
+            "ToolTip:create",
+            "ToolTip:style",
+            "ToolTip:background",
+            "ToolTip:measure",
+            "ToolTip:place",
+            // timed across frames, not a trace section
+            "ToolTip:firstFrame"
+    };
+
+    /**
+     * Only emits trace sections, used while no metrics listener is set
+     */
+    static final ToolTipMetrics TRACE_ONLY = new ToolTipMetrics(false);
+
+    private final boolean mRecording;
+    private final long[] mDurations = new long[PHASE_COUNT];
+    private long mPhaseStart;
+
+    ToolTipMetrics(boolean recording) {
+        mRecording = recording;
+    }
+
+    void begin(int phase) {
+        Trace.beginSection(SECTION_NAMES[phase]);
+        if (mRecording) {
+            mPhaseStart = System.nanoTime();
+        }
+    }
+
+    void end(int phase) {
+        if (mRecording) {
+            mDurations[phase] += System.nanoTime() - mPhaseStart;
+        }
+        Trace.endSection();
+    }
+
+    void setDuration(int phase, long durationNanos) {
+        if (mRecording) {
+            mDurations[phase] = durationNanos;
+        }
+    }
+
+    boolean isRecording() {
+        return mRecording;
+    }
+
+    /**
+     * @param phase one of the PHASE_ constants
+     * @return time spent in the phase, in nanoseconds
+     */
+    public long getDurationNanos(int phase) {
+        return mDurations[phase];
+    }
+
+    /**
+     * @return time spent in all phases, in nanoseconds
+     */
+    public long getTotalNanos() {
+        long total = 0;
+        for (long duration : mDurations) {
+            total += duration;
+        }
+        return total;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("ToolTipMetrics{");
+        for (int i = 0; i < PHASE_COUNT; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(SECTION_NAMES[i].substring("ToolTip:".length()))
+                    .append('=').append(mDurations[i] / 1000).append("us");
+        }
+        return builder.append('}').toString();
+    }
+}
@@ -0,0 +1,223 @@
+/*
+Copyright 2016 Tomer Goldstein
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package com.tomergoldst.tooltips;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.drawable.Drawable;
+import android.text.Layout;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.Nullable;
+
+import com.tomergoldst.tooltips.core.TipGrid;
+
+import java.util.ArrayList;
+
+/**
+ * Draws every overlay tip of a root, so showing a tip costs a draw call instead of a view.
+ * Tips are baked from a measured and positioned tip view: its background drawable, its
+ * cached text layout and where it would have been laid out. Touches are hit tested here,
+ * touches outside all tips fall through to the views below.
+ */
+@SuppressLint("ViewConstructor")
+class ToolTipOverlayView extends View {
+
+    interface OnTipClickListener {
+        void onTipClick(Tip tip);
+
+        /**
+         * @return true to keep the touch from the views below
+         */
+        boolean onOutsideTouch();
+    }
+
+    /**
+     * A tip drawn by the overlay, in the root's content coordinates
+     */
+    static final class Tip {
+        final ToolTipOverlayView mHost;
+        final ToolTip mToolTip;
+        final int mLeft;
+        final int mTop;
+        final int mWidth;
+        final int mHeight;
+        @Nullable
+        final Drawable mBackground;
+        @Nullable
+        final Layout mTextLayout;
+        final int mTextLeft;
+        final int mTextTop;
+        final int mTextColor;
+        final long mSeenKey;
+
+        Tip(ToolTipOverlayView host, ToolTipView tipView, ToolTip toolTip, int left, int top) {
+            mHost = host;
+            mToolTip = toolTip;
+            mLeft = left;
+            mTop = top;
+            mWidth = tipView.getMeasuredWidth();
+            mHeight = tipView.getMeasuredHeight();
+            mBackground = tipView.getBackground();
+            if (mBackground != null) {
+                mBackground.setBounds(0, 0, mWidth, mHeight);
+            }
+            mTextLayout = tipView.getTextLayout();
+            mTextLeft = tipView.getTextLeft(mWidth);
+            mTextTop = tipView.getTextTop(mHeight);
+            mTextColor = tipView.getCurrentTextColor();
+            mSeenKey = tipView.getSeenKey();
+        }
+
+        ToolTipOverlayView getHost() {
+            return mHost;
+        }
+
+        ToolTip getToolTip() {
+            return mToolTip;
+        }
+
+        long getSeenKey() {
+            return mSeenKey;
+        }
+
+        void draw(Canvas canvas) {
+            canvas.save();
+            canvas.translate(mLeft, mTop);
+            if (mBackground != null) {
+                mBackground.draw(canvas);
+            }
+            if (mTextLayout != null) {
+                // the paint is shared by every tip showing this layout
+                mTextLayout.getPaint().setColor(mTextColor);
+                canvas.translate(mTextLeft, mTextTop);
+                mTextLayout.draw(canvas);
+            }
+            canvas.restore();
+        }
+    }
+
+    private final ViewGroup mRoot;
+    // in show order, later tips are drawn on top
+    private final ArrayList<Tip> mTips = new ArrayList<>();
+    // tip bounds in the root's content coordinates, for hit testing
+    private final TipGrid<Tip> mTipGrid = new TipGrid<>(TipGrid.DEFAULT_CELL_SIZE);
+    @Nullable
+    private OnTipClickListener mOnTipClickListener;
+    @Nullable
+    private Tip mPressedTip;
+
+    ToolTipOverlayView(Context context, ViewGroup root) {
+        super(context);
+        mRoot = root;
+        setWillNotDraw(false);
+    }
+
+    ViewGroup getRoot() {
+        return mRoot;
+    }
+
+    void setOnTipClickListener(@Nullable OnTipClickListener listener) {
+        mOnTipClickListener = listener;
+    }
+
+    /**
+     * Take over a measured and positioned tip view. The view is no longer needed afterwards.
+     *
+     * @param left where the tip view would be laid out in the root
+     * @param top where the tip view would be laid out in the root
+     */
+    Tip addTip(ToolTipView tipView, ToolTip toolTip, int left, int top) {
+        Tip tip = new Tip(this, tipView, toolTip, left, top);
+        mTips.add(tip);
+        mTipGrid.setSize(mRoot.getWidth(), mRoot.getHeight());
+        mTipGrid.put(tip, left, top, left + tip.mWidth, top + tip.mHeight);
+        invalidate();
+        return tip;
+    }
+
+    void removeTip(Tip tip) {
+        if (mTips.remove(tip)) {
+            mTipGrid.remove(tip);
+            if (mPressedTip == tip) {
+                mPressedTip = null;
+            }
+            invalidate();
+        }
+    }
+
+    boolean isEmpty() {
+        return mTips.isEmpty();
+    }
+
+    /**
+     * @return tips of this overlay, most recent first. A copy, tips may be removed while visiting
+     */
+    Tip[] getTips() {
+        Tip[] tips = new Tip[mTips.size()];
+        for (int i = 0; i < tips.length; i++) {
+            tips[i] = mTips.get(tips.length - 1 - i);
+        }
+        return tips;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        // tips are positioned in the root, like the tip views they replace
+        canvas.save();
+        canvas.translate(-getLeft(), -getTop());
+        for (int i = 0, size = mTips.size(); i < size; i++) {
+            mTips.get(i).draw(canvas);
+        }
+        canvas.restore();
+    }
+
+    @Nullable
+    private Tip findTipAt(float x, float y) {
+        return mTipGrid.find((int) x + getLeft(), (int) y + getTop());
+    }
+
+    @SuppressLint("ClickableViewAccessibility")
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                mPressedTip = findTipAt(event.getX(), event.getY());
+                if (mPressedTip != null) {
+                    return true;
+                }
+                // a touch outside the tips reaches the views below unless the listener keeps it
+                return mOnTipClickListener != null && mOnTipClickListener.onOutsideTouch();
+            case MotionEvent.ACTION_UP:
+                Tip tip = mPressedTip;
+                mPressedTip = null;
+                if (tip != null && tip == findTipAt(event.getX(), event.getY())
+                        && mOnTipClickListener != null) {
+                    mOnTipClickListener.onTipClick(tip);
+                }
+                return true;
+            case MotionEvent.ACTION_CANCEL:
+                mPressedTip = null;
+                return true;
+        }
+        // only the gestures the overlay took are dispatched to it
+        return true;
+    }
+}
@@ -0,0 +1,244 @@
+/*
+Copyright 2016 Tomer Goldstein
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package com.tomergoldst.tooltips;
+
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.view.View;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tips shown one after the other, started by {@link ToolTipsManager#startTour(List, Listener)}.
+ * While a step is on screen the next one is created, measured and positioned once the main
+ * thread is idle, so moving on only adds the tip view and animates it in.
+ * Tour tips are always shown as views, whatever the manager's render mode is.
+ */
+public class ToolTipTour {
+
+    public interface Listener {
+        void onStepShown(int step, @NonNull View tipView);
+
+        /**
+         * @param completed true if every step was shown, false if the tour was cancelled
+         */
+        void onTourFinished(boolean completed);
+    }
+
+    private final ToolTipsManager mToolTipsManager;
+    private final ArrayList<ToolTip> mSteps;
+    @Nullable
+    private final Listener mListener;
+
+    private int mStep = -1;
+    @Nullable
+    private View mCurrentTipView;
+    private boolean mAdvancing;
+    private boolean mFinished;
+
+    // the next step, ready to be added to its root
+    @Nullable
+    private TextView mPreparedTipView;
+    private int mPreparedStep = -1;
+    @Nullable
+    private Coordinates mPreparedAnchorCoordinates;
+    @Nullable
+    private Coordinates mPreparedRootCoordinates;
+    private boolean mPrepareQueued;
+
+    private final MessageQueue.IdleHandler mPrepareNextStep = new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            mPrepareQueued = false;
+            prepareNextStep();
+            return false;
+        }
+    };
+
+    ToolTipTour(ToolTipsManager toolTipsManager, List<ToolTip> steps, @Nullable Listener listener) {
+        mToolTipsManager = toolTipsManager;
+        mSteps = new ArrayList<>(steps);
+        mListener = listener;
+    }
+
+    void start() {
+        showStep(0);
+    }
+
+    /**
+     * @return index of the step on screen, -1 before the first step is shown
+     */
+    public int getStep() {
+        return mStep;
+    }
+
+    public boolean isFinished() {
+        return mFinished;
+    }
+
+    /**
+     * Dismiss the current tip and show the next one
+     */
+    public void next() {
+        if (mFinished) {
+            return;
+        }
+        View currentTipView = mCurrentTipView;
+        if (currentTipView != null) {
+            // move on once the tip is animated out
+            mAdvancing = true;
+            if (mToolTipsManager.dismiss(currentTipView, false)) {
+                return;
+            }
+            mAdvancing = false;
+            mCurrentTipView = null;
+        }
+        showStep(mStep + 1);
+    }
+
+    /**
+     * Dismiss the current tip and end the tour
+     */
+    public void cancel() {
+        if (mFinished) {
+            return;
+        }
+        View currentTipView = mCurrentTipView;
+        mCurrentTipView = null;
+        finish(false);
+        if (currentTipView != null) {
+            mToolTipsManager.dismiss(currentTipView, false);
+        }
+    }
+
+    @Nullable
+    View getCurrentTipView() {
+        return mCurrentTipView;
+    }
+
+    void onTipDismissed(View tipView, boolean byUser) {
+        if (mFinished || tipView != mCurrentTipView) {
+            return;
+        }
+        mCurrentTipView = null;
+        if (byUser || mAdvancing) {
+            mAdvancing = false;
+            showStep(mStep + 1);
+        } else {
+            // dismissed from code, not by the tour
+            finish(false);
+        }
+    }
+
+    private void showStep(int step) {
+        for (; step < mSteps.size(); step++) {
+            ToolTip toolTip = mSteps.get(step);
+            View tipView;
+            if (mPreparedTipView != null && mPreparedStep == step) {
+                TextView preparedTipView = mPreparedTipView;
+                boolean moved = hasMovedSincePrepared(toolTip);
+                clearPrepared();
+                tipView = mToolTipsManager.showPlacedTipView(preparedTipView, toolTip, moved);
+            } else {
+                discardPrepared();
+                TextView placedTipView = mToolTipsManager.preparePlacedTipView(toolTip);
+                tipView = placedTipView != null ?
+                        mToolTipsManager.showPlacedTipView(placedTipView, toolTip, false) : null;
+            }
+
+            // skip steps which cannot be shown, e.g. their anchor is gone
+            if (tipView != null) {
+                mStep = step;
+                mCurrentTipView = tipView;
+                if (mListener != null) {
+                    mListener.onStepShown(step, tipView);
+                }
+                queuePrepareNextStep();
+                return;
+            }
+        }
+        finish(true);
+    }
+
+    private void queuePrepareNextStep() {
+        if (!mPrepareQueued && mStep + 1 < mSteps.size()) {
+            mPrepareQueued = true;
+            Looper.myQueue().addIdleHandler(mPrepareNextStep);
+        }
+    }
+
+    private void prepareNextStep() {
+        int step = mStep + 1;
+        if (mFinished || mPreparedTipView != null || step >= mSteps.size()) {
+            return;
+        }
+        ToolTip toolTip = mSteps.get(step);
+        // an anchor not on screen yet is handled when its step comes
+        if (toolTip.getAnchorView().getWindowToken() == null) {
+            return;
+        }
+        mPreparedTipView = mToolTipsManager.preparePlacedTipView(toolTip);
+        if (mPreparedTipView != null) {
+            mPreparedStep = step;
+            mPreparedAnchorCoordinates = new Coordinates(toolTip.getAnchorView());
+            mPreparedRootCoordinates = new Coordinates(toolTip.getRootView());
+        }
+    }
+
+    private boolean hasMovedSincePrepared(ToolTip toolTip) {
+        return mPreparedAnchorCoordinates == null || mPreparedRootCoordinates == null
+                || !isAt(mPreparedAnchorCoordinates, new Coordinates(toolTip.getAnchorView()))
+                || !isAt(mPreparedRootCoordinates, new Coordinates(toolTip.getRootView()));
+    }
+
+    private static boolean isAt(Coordinates coordinates, Coordinates other) {
+        return coordinates.left == other.left && coordinates.top == other.top
+                && coordinates.right == other.right && coordinates.bottom == other.bottom;
+    }
+
+    private void clearPrepared() {
+        mPreparedTipView = null;
+        mPreparedStep = -1;
+        mPreparedAnchorCoordinates = null;
+        mPreparedRootCoordinates = null;
+    }
+
+    private void discardPrepared() {
+        if (mPreparedTipView != null) {
+            mToolTipsManager.discardPlacedTipView(mPreparedTipView);
+        }
+        clearPrepared();
+    }
+
+    private void finish(boolean completed) {
+        mFinished = true;
+        if (mPrepareQueued) {
+            mPrepareQueued = false;
+            Looper.myQueue().removeIdleHandler(mPrepareNextStep);
+        }
+        discardPrepared();
+        mToolTipsManager.onTourFinished(this);
+        if (mListener != null) {
+            mListener.onTourFinished(completed);
+        }
+    }
+}
@@ -0,0 +1,321 @@
+/*
+Copyright 2016 Tomer Goldstein
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+
+package com.tomergoldst.tooltips;
+
+import android.animation.AnimatorListenerAdapter;
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Typeface;
+import android.text.Layout;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.view.Gravity;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.StyleRes;
+
+/**
+ * The text view used to show a tip. Remembers the text appearance and typeface it was
+ * styled with so a recycled view can be reused without styling it again.
+ * Measures and draws its text with layouts from {@link TextLayoutCache} instead of
+ * breaking lines on every measure, unless it is given line limits, line spacing or
+ * ellipsizing, which only TextView lays out, or links or selection, which read its layout.
+ * <p>
+ * TextView does not lay the text out itself when a cached layout is used, so
+ * {@link #getLayout()} is null then: use {@link #getTextLayout()}. {@link #getLineCount()}
+ * and {@link #getBaseline()} answer from the cached layout.
+ */
+@SuppressWarnings("AppCompatCustomView")
+class ToolTipView extends TextView {
+
+    @StyleRes
+    private int mTextAppearanceStyle;
+    @Nullable
+    private Typeface mCustomTypeface;
+
+    private int mMaxWidth = Integer.MAX_VALUE;
+    // TextView features the cached layouts do not apply, set through the setters below.
+    // Not initialized, the TextView constructor may call the setters first
+    private boolean mMaxLinesSet;
+    private boolean mMinLinesSet;
+    private boolean mLineSpacingSet;
+    private boolean mEllipsized;
+    private boolean mSingleLine;
+    // The text as given, TextView keeps a copy of spanned text, which would never match the cache
+    @Nullable
+    private CharSequence mMessage;
+    @Nullable
+    private Layout mCachedLayout;
+    // phase timings of the current show
+    private ToolTipMetrics mMetrics = ToolTipMetrics.TRACE_ONLY;
+    // set by the manager once, reused by every dismissal of this view
+    @Nullable
+    private AnimatorListenerAdapter mDismissListener;
+    // hash of the tip's seen key, 0 for none
+    private long mSeenKey;
+    // the root showing this view, while it is shown
+    @Nullable
+    private ViewGroup mRoot;
+    // the tip shown by this view, while it is shown
+    @Nullable
+    private ToolTip mToolTip;
+
+    ToolTipView(Context context) {
+        super(context);
+    }
+
+    void setStyledWith(@StyleRes int textAppearanceStyle, @Nullable Typeface typeface) {
+        mTextAppearanceStyle = textAppearanceStyle;
+        mCustomTypeface = typeface;
+    }
+
+    /**
+     * @return true if this view was styled for the given context, text appearance and typeface
+     */
+    boolean isStyledWith(Context context, @StyleRes int textAppearanceStyle, @Nullable Typeface typeface) {
+        return getContext() == context
+                && mTextAppearanceStyle == textAppearanceStyle
+                && mCustomTypeface == typeface;
+    }
+
+    ToolTipMetrics getMetrics() {
+        return mMetrics;
+    }
+
+    void setMetrics(ToolTipMetrics metrics) {
+        mMetrics = metrics;
+    }
+
+    @Nullable
+    AnimatorListenerAdapter getDismissListener() {
+        return mDismissListener;
+    }
+
+    void setDismissListener(@Nullable AnimatorListenerAdapter dismissListener) {
+        mDismissListener = dismissListener;
+    }
+
+    long getSeenKey() {
+        return mSeenKey;
+    }
+
+    void setSeenKey(long seenKey) {
+        mSeenKey = seenKey;
+    }
+
+    @Nullable
+    ViewGroup getRoot() {
+        return mRoot;
+    }
+
+    void setRoot(@Nullable ViewGroup root) {
+        mRoot = root;
+    }
+
+    @Nullable
+    ToolTip getToolTip() {
+        return mToolTip;
+    }
+
+    void setToolTip(@Nullable ToolTip toolTip) {
+        mToolTip = toolTip;
+    }
+
+    @Override
+    public void setMaxWidth(int maxPixels) {
+        super.setMaxWidth(maxPixels);
+        mMaxWidth = maxPixels;
+    }
+
+    @Override
+    public void setMaxLines(int maxLines) {
+        super.setMaxLines(maxLines);
+        mMaxLinesSet = maxLines != Integer.MAX_VALUE;
+    }
+
+    @Override
+    public void setMinLines(int minLines) {
+        super.setMinLines(minLines);
+        mMinLinesSet = minLines > 0;
+    }
+
+    @Override
+    public void setLines(int lines) {
+        super.setLines(lines);
+        mMaxLinesSet = true;
+        mMinLinesSet = true;
+    }
+
+    @Override
+    public void setLineSpacing(float add, float mult) {
+        super.setLineSpacing(add, mult);
+        mLineSpacingSet = add != 0 || mult != 1;
+    }
+
+    @Override
+    public void setEllipsize(TextUtils.TruncateAt where) {
+        super.setEllipsize(where);
+        mEllipsized = where != null;
+    }
+
+    @Override
+    public void setSingleLine(boolean singleLine) {
+        super.setSingleLine(singleLine);
+        mSingleLine = singleLine;
+    }
+
+    /**
+     * @return true if the text needs a TextView layout rather than a cached one
+     */
+    private boolean usesTextViewLayout() {
+        return mMaxLinesSet || mMinLinesSet || mLineSpacingSet || mEllipsized || mSingleLine
+                || getMovementMethod() != null;
+    }
+
+    @Override
+    public void setText(CharSequence text, BufferType type) {
+        super.setText(text, type);
+        mMessage = text;
+        mCachedLayout = null;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        if (usesTextViewLayout()) {
+            mCachedLayout = null;
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+            return;
+        }
+
+        int widthMode = MeasureSpec.getMode(widthMeasureSpec);
+        int widthSize = MeasureSpec.getSize(widthMeasureSpec);
+        int heightMode = MeasureSpec.getMode(heightMeasureSpec);
+        int heightSize = MeasureSpec.getSize(heightMeasureSpec);
+        int horizontalPadding = getCompoundPaddingLeft() + getCompoundPaddingRight();
+        int verticalPadding = getCompoundPaddingTop() + getCompoundPaddingBottom();
+
+        // same width rules TextView applies, max width includes the padding
+        boolean exact = widthMode == MeasureSpec.EXACTLY;
+        int textWidth;
+        if (exact) {
+            textWidth = widthSize - horizontalPadding;
+        } else {
+            int maxWidth = mMaxWidth;
+            if (widthMode == MeasureSpec.AT_MOST) {
+                maxWidth = Math.min(maxWidth, widthSize);
+            }
+            textWidth = maxWidth == Integer.MAX_VALUE ?
+                    TextLayoutCache.UNBOUNDED : maxWidth - horizontalPadding;
+        }
+
+        mCachedLayout = TextLayoutCache.obtain(mMessage != null ? mMessage : getText(), getPaint(),
+                mTextAppearanceStyle, mCustomTypeface, getGravity(), TextLayoutCache.getBreakStrategy(this),
+                TextLayoutCache.getHyphenationFrequency(this), Math.max(textWidth, 0), exact);
+
+        int width = exact ? widthSize : Math.max(mCachedLayout.getWidth() + horizontalPadding,
+                getSuggestedMinimumWidth());
+        int height = Math.max(mCachedLayout.getHeight() + verticalPadding, getSuggestedMinimumHeight());
+        if (heightMode == MeasureSpec.EXACTLY) {
+            height = heightSize;
+        } else if (heightMode == MeasureSpec.AT_MOST) {
+            height = Math.min(height, heightSize);
+        }
+        setMeasuredDimension(width, height);
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        if (mCachedLayout == null) {
+            super.onDraw(canvas);
+            return;
+        }
+
+        // the paint is shared by every view showing this layout, color it for this one
+        TextPaint paint = mCachedLayout.getPaint();
+        paint.setColor(getCurrentTextColor());
+        paint.drawableState = getDrawableState();
+
+        canvas.save();
+        canvas.translate(getTextLeft(getWidth()), getTextTop(getHeight()));
+        mCachedLayout.draw(canvas);
+        canvas.restore();
+    }
+
+    /**
+     * @return the layout of the last measure, or null if not measured yet
+     */
+    @Nullable
+    Layout getTextLayout() {
+        return mCachedLayout != null ? mCachedLayout : getLayout();
+    }
+
+    @Override
+    public int getLineCount() {
+        return mCachedLayout != null ? mCachedLayout.getLineCount() : super.getLineCount();
+    }
+
+    @Override
+    public int getBaseline() {
+        if (mCachedLayout == null) {
+            return super.getBaseline();
+        }
+        return getTextTop(getHeight()) + mCachedLayout.getLineBaseline(0);
+    }
+
+    /**
+     * The view may be larger than the text, e.g. a background minimum size,
+     * place the text in that box by gravity like TextView does
+     *
+     * @return left of the text layout in a view of the given width
+     */
+    int getTextLeft(int width) {
+        int dx = 0;
+        if (mCachedLayout != null) {
+            int boxWidth = width - getCompoundPaddingLeft() - getCompoundPaddingRight();
+            switch (mCachedLayout.getAlignment()) {
+                case ALIGN_CENTER:
+                    dx = (boxWidth - mCachedLayout.getWidth()) / 2;
+                    break;
+                case ALIGN_OPPOSITE:
+                    dx = boxWidth - mCachedLayout.getWidth();
+                    break;
+            }
+        }
+        return getCompoundPaddingLeft() + Math.max(dx, 0);
+    }
+
+    /**
+     * @return top of the text layout in a view of the given height
+     */
+    int getTextTop(int height) {
+        int dy = 0;
+        if (mCachedLayout != null) {
+            int boxHeight = height - getCompoundPaddingTop() - getCompoundPaddingBottom();
+            switch (getGravity() & Gravity.VERTICAL_GRAVITY_MASK) {
+                case Gravity.CENTER_VERTICAL:
+                    dy = (boxHeight - mCachedLayout.getHeight()) / 2;
+                    break;
+                case Gravity.BOTTOM:
+                    dy = boxHeight - mCachedLayout.getHeight();
+                    break;
+            }
+        }
+        return getCompoundPaddingTop() + Math.max(dy, 0);
+    }
+}
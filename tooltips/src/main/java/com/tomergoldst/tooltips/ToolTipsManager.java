@@ -19,176 +19,1341 @@ package com.tomergoldst.tooltips;
 import android.animation.Animator;
 import android.animation.AnimatorListenerAdapter;
 import android.annotation.SuppressLint;
+import android.content.Context;
 import android.graphics.Outline;
 import android.graphics.Point;
 import android.graphics.Typeface;
 import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
 import android.util.Log;
 import android.view.View;
+import android.view.ViewGroup;
 import android.view.ViewOutlineProvider;
+import android.view.ViewParent;
 import android.widget.TextView;
 
+import androidx.annotation.IntDef;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.StyleRes;
+import androidx.annotation.VisibleForTesting;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
 
+import com.tomergoldst.tooltips.core.SeenTipsFile;
+import com.tomergoldst.tooltips.core.TipRegistry;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 public class ToolTipsManager {
 
     private static final String TAG = ToolTipsManager.class.getSimpleName();
 
     private static final int DEFAULT_ANIM_DURATION = 400;
+    private static final int MAX_POOLED_TIP_VIEWS = 5;
+    private static final String PREWARM_TEXT = "Tip";
+    // how long an empty tip host stays in its root, so showing a tip again soon is as cheap
+    @VisibleForTesting
+    static final long EMPTY_HOST_TIMEOUT_MS = 5000;
+
+    @IntDef({RENDER_MODE_VIEWS, RENDER_MODE_OVERLAY})
+    @Retention(RetentionPolicy.SOURCE)
+    public @interface RenderMode {}
+
+    /**
+     * Each tip is a view added to the root
+     */
+    public static final int RENDER_MODE_VIEWS = 0;
+
+    /**
+     * All tips of a root are drawn by a single overlay view added to the root
+     */
+    public static final int RENDER_MODE_OVERLAY = 1;
+
+    // Shown tips by anchor view, tip and group. A tip is a view or an overlay tip
+    private final TipRegistry<View, Object> mTips = new TipRegistry<>();
+
+    private final TipRegistry.Visitor<Object> mDismissVisitor = new TipRegistry.Visitor<Object>() {
+        @Override
+        public void visit(Object tip) {
+            if (tip instanceof ToolTipOverlayView.Tip) {
+                dismissOverlayTip((ToolTipOverlayView.Tip) tip, false);
+            } else if (!dismiss((View) tip, false)) {
+                // hidden tips are not animated out
+                removeTip(tip);
+                recycleTipView((View) tip);
+            }
+        }
+    };
+
+    private final TipRegistry.Visitor<Object> mRemoveVisitor = new TipRegistry.Visitor<Object>() {
+        @Override
+        public void visit(Object tip) {
+            removeTip(tip);
+            if (tip instanceof ToolTipOverlayView.Tip) {
+                removeOverlayTip((ToolTipOverlayView.Tip) tip);
+            } else {
+                recycleTipView((View) tip);
+            }
+        }
+    };
+
+    // Removes the tips of a root which left its window
+    @Nullable
+    private ViewGroup mDetachedRoot;
+
+    private final TipRegistry.Visitor<Object> mRootDetachedVisitor = new TipRegistry.Visitor<Object>() {
+        @Override
+        public void visit(Object tip) {
+            if (getRoot(tip) == mDetachedRoot) {
+                mRemoveVisitor.visit(tip);
+            }
+        }
+    };
+
+    private final RootDetachWatcher mRootDetachWatcher = new RootDetachWatcher(
+            new RootDetachWatcher.Callback() {
+                @Override
+                public void onRootDetached(ViewGroup root) {
+                    removeTipsOfRoot(root);
+                    // pooled views hold the context of the screen which is gone
+                    mTipViewPool.evict(root);
+                    dropDismissedTipViews(root);
+                    removeEmptyHosts(root);
+                }
+            });
+
+    // Moves tip views apart once per frame, null unless collisions are avoided
+    @Nullable
+    private TipCollisionPass mCollisionPass;
+    @Nullable
+    private ViewGroup mCollectRoot;
+    @Nullable
+    private ArrayList<ToolTipView> mCollectedTipViews;
+
+    private final TipRegistry.Visitor<Object> mCollectVisitor = new TipRegistry.Visitor<Object>() {
+        @Override
+        public void visit(Object tip) {
+            if (tip instanceof ToolTipView && ((ToolTipView) tip).getRoot() == mCollectRoot
+                    && ((ToolTipView) tip).getToolTip() != null) {
+                mCollectedTipViews.add((ToolTipView) tip);
+            }
+        }
+    };
+
+    private final TipCollisionPass.Callback mCollisionCallback = new TipCollisionPass.Callback() {
+        @Override
+        public void collectTipViews(ViewGroup root, ArrayList<ToolTipView> out) {
+            mCollectRoot = root;
+            mCollectedTipViews = out;
+            mTips.forEach(mCollectVisitor);
+            mCollectRoot = null;
+            mCollectedTipViews = null;
+        }
+
+        @Override
+        public void moveToPosition(ToolTipView tipView, ToolTip toolTip, int position) {
+            placeAtPosition(tipView, toolTip, position);
+            indexHostedTip(tipView);
+        }
+
+        @Override
+        public void onTipMoved(ToolTipView tipView, ToolTip toolTip, Point p) {
+            pointArrowAtAnchor(tipView, toolTip, p);
+            indexHostedTip(tipView);
+        }
+    };
 
-    // Parameter for managing tip creation or reuse
-    private Map<Integer, View> mTipsMap = new HashMap<>();
+    // Dismissed tip views handed to the tip listener, pooled once the current message is handled
+    private final ArrayList<ToolTipView> mDismissedTipViews = new ArrayList<>();
+    private final ArrayList<ViewGroup> mDismissedTipRoots = new ArrayList<>();
+    private final Runnable mPoolDismissedTipViews = new Runnable() {
+        @Override
+        public void run() {
+            poolDismissedTipViews();
+        }
+    };
+
+    // Show and dismiss animations which have not ended yet
+    private final ArrayList<Animator> mRunningAnimators = new ArrayList<>();
+
+    private final AnimatorListenerAdapter mRunningAnimatorTracker = new AnimatorListenerAdapter() {
+        @Override
+        public void onAnimationEnd(Animator animation) {
+            mRunningAnimators.remove(animation);
+        }
+    };
+
+    // Set while the manager is released, listeners are not notified meanwhile
+    private boolean mReleasing;
+    // Incremented on each release, async tips requested before a release are dropped
+    private int mReleaseCount;
+    private boolean mPaused;
+
+    // Tips animated out together by dismissAll, with the anchor ids for the listener
+    private ArrayList<View> mBatchDismissViews = new ArrayList<>();
+    private int[] mBatchDismissAnchorIds = new int[0];
+
+    private final TipRegistry.Visitor<Object> mBatchDismissVisitor = new TipRegistry.Visitor<Object>() {
+        @Override
+        public void visit(Object tip) {
+            if (tip instanceof ToolTipOverlayView.Tip) {
+                dismissOverlayTip((ToolTipOverlayView.Tip) tip, false);
+                return;
+            }
+            View tipView = (View) tip;
+            if (isVisible(tipView)) {
+                int count = mBatchDismissViews.size();
+                if (count == mBatchDismissAnchorIds.length) {
+                    mBatchDismissAnchorIds = Arrays.copyOf(mBatchDismissAnchorIds, Math.max(count * 2, 8));
+                }
+                mBatchDismissAnchorIds[count] = mTips.getAnchorId(tipView);
+                mBatchDismissViews.add(tipView);
+                removeTip(tipView);
+            } else {
+                // hidden tips are not animated out
+                removeTip(tipView);
+                recycleTipView(tipView);
+            }
+        }
+    };
+
+    // Overlays drawing the tips of each root in overlay mode
+    private final ArrayList<ToolTipOverlayView> mOverlays = new ArrayList<>();
+
+    private final ToolTipOverlayView.OnTipClickListener mOverlayTipClickListener =
+            new ToolTipOverlayView.OnTipClickListener() {
+                @Override
+                public void onTipClick(ToolTipOverlayView.Tip tip) {
+                    dismissOverlayTip(tip, true);
+                }
+
+                @Override
+                public boolean onOutsideTouch() {
+                    return onTouchOutsideTips();
+                }
+            };
+
+    // Hosts the tip views of each root were added to with an isolated layout
+    private final ArrayList<ToolTipHostLayout> mHosts = new ArrayList<>();
+
+    private final Runnable mRemoveEmptyHosts = new Runnable() {
+        @Override
+        public void run() {
+            removeEmptyHosts(null);
+        }
+    };
+
+    // Touches on hosted tips, resolved by their host
+    private final ToolTipHostLayout.OnTipTouchListener mHostTipTouchListener =
+            new ToolTipHostLayout.OnTipTouchListener() {
+                @Override
+                public void onTipClick(View tipView) {
+                    dismiss(tipView, true);
+                }
+
+                @Override
+                public boolean onOutsideTouch() {
+                    return onTouchOutsideTips();
+                }
+            };
+
+    private final Runnable mDismissAllRunnable = new Runnable() {
+        @Override
+        public void run() {
+            dismissAll();
+        }
+    };
+
+    private boolean mDismissOnOutsideTouch;
+    private boolean mOutsideTouchThrough = true;
+
+    // Dismissed tip views, detached from their root and kept for reuse
+    private final TipViewPool mTipViewPool = new TipViewPool(MAX_POOLED_TIP_VIEWS, mRootDetachWatcher);
+
+    // Moves tips which follow their anchor view
+    private final AnchorTracker mAnchorTracker = new AnchorTracker();
+
+    // Shared by all managers unless one sets its own
+    private static Executor sDefaultTextMeasureExecutor;
+
+    @Nullable
+    private Executor mTextMeasureExecutor;
+    @Nullable
+    private Handler mMainHandler;
 
     private int mAnimationDuration;
+    private long mStaggerDelay;
     @NonNull
     private ToolTipAnimator mToolTipAnimator;
     @Nullable
     private TipListener mListener;
+    private boolean mMultipleTipsPerAnchor;
+    @RenderMode
+    private int mRenderMode = RENDER_MODE_VIEWS;
+    @Nullable
+    private ToolTipTour mTour;
+    @Nullable
+    private MetricsListener mMetricsListener;
+    @Nullable
+    private SeenTipsStore mSeenTipsStore;
+    @Nullable
+    private Prewarm mPrewarm;
+    private boolean mIsolatedLayout;
+
+    // scratch geometry for placing tips, which happens on the main thread only
+    private final Point mTipPosition = new Point();
+    private final Coordinates mScratchCoordinates = new Coordinates();
+    private int[] mScratchPositions = new int[0];
+
+    private final View.OnClickListener mTipClickListener = new View.OnClickListener() {
+        @Override
+        public void onClick(View view) {
+            dismiss(view, true);
+        }
+    };
+
+    // for tips drawn with a legacy background, which has no usable outline
+    private static ViewOutlineProvider sEmptyOutlineProvider;
 
     public interface TipListener {
+        /**
+         * @param view the dismissed tip view, or the overlay which drew the tip. A tip view is
+         *             removed from its root right after this call and reused for a later tip
+         *             once the current message is handled, so do not keep it
+         */
         void onTipDismissed(View view, int anchorViewId, boolean byUser);
     }
 
-    public ToolTipsManager(){
-        mAnimationDuration = DEFAULT_ANIM_DURATION;
-        mToolTipAnimator = new DefaultToolTipAnimator();
+    /**
+     * Timings of the show path and of tip animations, see {@link #setMetricsListener(MetricsListener)}
+     */
+    public interface MetricsListener {
+        /**
+         * Called once the first frame of the tip's show animation is drawn
+         */
+        void onTipShown(@NonNull View tipView, @NonNull ToolTipMetrics metrics);
+
+        /**
+         * Called when a show or dismiss animation ends. Requires API 16, not called before.
+         *
+         * @param tipView the animated tip, null for tips animated together by
+         *                {@link #showAll(List)} or {@link #dismissAll()}
+         * @param show true for a show animation, false for a dismiss animation
+         * @param frames frames drawn while the animation ran
+         * @param droppedFrames frames missed while the animation ran
+         */
+        void onAnimationFrames(@Nullable View tipView, boolean show, int frames, int droppedFrames);
+    }
+
+    public interface ShowCallback {
+        void onTipShown(View tipView);
+    }
+
+    /**
+     * A tip requested with {@link #showAsync(ToolTip, ShowCallback)} that may not be shown yet
+     */
+    public static final class PendingTip {
+
+        private final View mAnchorView;
+        private final View.OnAttachStateChangeListener mAnchorDetachListener =
+                new View.OnAttachStateChangeListener() {
+                    @Override
+                    public void onViewAttachedToWindow(View v) {
+                    }
+
+                    @Override
+                    public void onViewDetachedFromWindow(View v) {
+                        cancel();
+                    }
+                };
+        private volatile boolean mCancelled;
+        private boolean mFinished;
+
+        PendingTip(View anchorView) {
+            mAnchorView = anchorView;
+            if (mAnchorView != null) {
+                mAnchorView.addOnAttachStateChangeListener(mAnchorDetachListener);
+            }
+        }
+
+        /**
+         * Cancel the tip if it was not shown yet. Must be called from the main thread.
+         */
+        public void cancel() {
+            if (!mFinished) {
+                mCancelled = true;
+                finish();
+            }
+        }
+
+        public boolean isCancelled() {
+            return mCancelled;
+        }
+
+        void finish() {
+            if (!mFinished) {
+                mFinished = true;
+                if (mAnchorView != null) {
+                    mAnchorView.removeOnAttachStateChangeListener(mAnchorDetachListener);
+                }
+            }
+        }
+    }
+
+    public ToolTipsManager(){
+        mAnimationDuration = DEFAULT_ANIM_DURATION;
+        mToolTipAnimator = new DefaultToolTipAnimator();
+    }
+
+    public ToolTipsManager(@NonNull TipListener listener){
+        this();
+        mListener = listener;
+    }
+
+    /**
+     * Tie the manager to a lifecycle, e.g. of an Activity or Fragment. Anchor tracking and
+     * running animations are paused while it is stopped, and the manager is released when it
+     * is destroyed, see {@link #release()}.
+     */
+    public void bindTo(@NonNull LifecycleOwner owner) {
+        owner.getLifecycle().addObserver(new LifecycleEventObserver() {
+            @Override
+            public void onStateChanged(@NonNull LifecycleOwner source, @NonNull Lifecycle.Event event) {
+                if (event == Lifecycle.Event.ON_START) {
+                    setPaused(false);
+                } else if (event == Lifecycle.Event.ON_STOP) {
+                    setPaused(true);
+                } else if (event == Lifecycle.Event.ON_DESTROY) {
+                    source.getLifecycle().removeObserver(this);
+                    release();
+                }
+            }
+        });
+    }
+
+    /**
+     * Remove all tips right away and drop every reference to views and contexts: running
+     * animations are cancelled, the tour is cancelled, tips not shown yet by
+     * {@link #showAsync(ToolTip, ShowCallback)} are dropped and pooled views are released.
+     * The tip listener is not notified of tips removed this way. The manager can be used
+     * again afterwards.
+     */
+    public void release() {
+        mReleasing = true;
+        mReleaseCount++;
+        cancelPrewarm();
+        if (mTour != null) {
+            mTour.cancel();
+        }
+
+        // ending a dismiss animation recycles its tip
+        Animator[] animators = mRunningAnimators.toArray(new Animator[0]);
+        mRunningAnimators.clear();
+        for (Animator animator : animators) {
+            animator.cancel();
+        }
+
+        mTips.forEach(mRemoveVisitor);
+        if (mCollisionPass != null) {
+            mCollisionPass.cancelAll();
+        }
+        mAnchorTracker.clear();
+        mRootDetachWatcher.clear();
+        mTipViewPool.clear();
+        getMainHandler().removeCallbacks(mPoolDismissedTipViews);
+        mDismissedTipViews.clear();
+        mDismissedTipRoots.clear();
+        getMainHandler().removeCallbacks(mRemoveEmptyHosts);
+        removeEmptyHosts(null);
+        mReleasing = false;
+        mPaused = false;
+        mAnchorTracker.setPaused(false);
+    }
+
+    /**
+     * Get ready for the first tips, so showing them is as quick as showing any later tip.
+     * Backgrounds are decoded on a background thread, and pooled tip views are created and
+     * styled on the main thread while it is idle, one view per idle time. Must be called
+     * from the main thread, with the context the tips will be built with.
+     */
+    public void prewarm(@NonNull final Context context, @NonNull final PrewarmConfig config) {
+        cancelPrewarm();
+        getTextMeasureExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                ToolTipBackgroundConstructor.preload(context, config.getBackgroundColor(),
+                        config.usesLegacyBackground());
+            }
+        });
+        if (config.getViewCount() > 0) {
+            mPrewarm = new Prewarm(context, config);
+            Looper.myQueue().addIdleHandler(mPrewarm);
+        }
+    }
+
+    private void cancelPrewarm() {
+        if (mPrewarm != null) {
+            Looper.myQueue().removeIdleHandler(mPrewarm);
+            mPrewarm = null;
+        }
+    }
+
+    /**
+     * Creates the prewarmed tip views into the pool
+     */
+    private final class Prewarm implements MessageQueue.IdleHandler {
+
+        private final Context mContext;
+        private final PrewarmConfig mConfig;
+        private int mCreated;
+
+        Prewarm(Context context, PrewarmConfig config) {
+            mContext = context;
+            mConfig = config;
+        }
+
+        @Override
+        public boolean queueIdle() {
+            ToolTipView tipView = newTipView(mContext);
+            styleNewTipView(tipView, mContext, mConfig.getTextAppearanceStyle(), mConfig.getTypeface());
+            if (mCreated == 0) {
+                // the first text measured loads the font and the text measuring code. Measured
+                // with the paint, a layout would take a text layout cache slot for nothing
+                tipView.getPaint().measureText(PREWARM_TEXT);
+            }
+            mCreated++;
+            boolean more = mTipViewPool.release(tipView, null) && mCreated < mConfig.getViewCount();
+            if (!more && mPrewarm == this) {
+                mPrewarm = null;
+            }
+            return more;
+        }
+    }
+
+    private void setPaused(boolean paused) {
+        if (mPaused == paused) {
+            return;
+        }
+        mPaused = paused;
+        mAnchorTracker.setPaused(paused);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            for (int i = 0; i < mRunningAnimators.size(); i++) {
+                if (paused) {
+                    mRunningAnimators.get(i).pause();
+                } else {
+                    mRunningAnimators.get(i).resume();
+                }
+            }
+        }
+    }
+
+    /**
+     * Quietly remove the tips of a root which left its window, nothing else will
+     */
+    private void removeTipsOfRoot(ViewGroup root) {
+        View tourTipView = mTour != null ? mTour.getCurrentTipView() : null;
+        boolean cancelTour = tourTipView != null && getRoot(tourTipView) == root;
+
+        mDetachedRoot = root;
+        mTips.forEach(mRootDetachedVisitor);
+        mDetachedRoot = null;
+        if (mCollisionPass != null) {
+            mCollisionPass.cancel(root);
+        }
+
+        if (cancelTour) {
+            mTour.cancel();
+        }
+    }
+
+    public View show(ToolTip toolTip) {
+        View tipView = create(toolTip);
+        if (tipView == null) {
+            return null;
+        }
+
+        // animate tip visibility, overlay tips appear as they are drawn
+        if (!(tipView instanceof ToolTipOverlayView)) {
+            startAnimation(mToolTipAnimator.popup(tipView, mAnimationDuration), tipView, true);
+        }
+
+        return tipView;
+    }
+
+    /**
+     * Show many tips at once. All tips are measured and positioned before any is added to its
+     * root, so the roots lay them out in a single pass, and with the default animator a single
+     * animator brings them all in.
+     *
+     * @param toolTips tips to show
+     * @return the views showing the tips, in order, without the tips which could not be shown
+     */
+    @NonNull
+    public List<View> showAll(@NonNull List<ToolTip> toolTips) {
+        ArrayList<View> shownViews = new ArrayList<>(toolTips.size());
+        ArrayList<View> addedViews = new ArrayList<>(toolTips.size());
+        ArrayList<ViewGroup> parents = new ArrayList<>(toolTips.size());
+
+        for (int i = 0; i < toolTips.size(); i++) {
+            ToolTip toolTip = toolTips.get(i);
+            if (!canCreate(toolTip)) {
+                continue;
+            }
+            // also finds tips shown earlier in this batch
+            View existingTipView = findExisting(toolTip);
+            if (existingTipView != null) {
+                shownViews.add(existingTipView);
+                continue;
+            }
+
+            TextView tipView = prepareTipView(toolTip);
+            if (mRenderMode == RENDER_MODE_OVERLAY && tipView instanceof ToolTipView) {
+                shownViews.add(attachOverlayTip((ToolTipView) tipView, toolTip));
+                continue;
+            }
+            placeDetachedTipView(tipView, toolTip);
+            registerTipView(tipView, toolTip);
+            shownViews.add(tipView);
+            addedViews.add(tipView);
+            parents.add(getTipParent(toolTip));
+        }
+
+        for (int i = 0; i < addedViews.size(); i++) {
+            parents.get(i).addView(addedViews.get(i));
+            indexHostedTip(addedViews.get(i));
+        }
+
+        if (addedViews.isEmpty()) {
+            return shownViews;
+        }
+        if (mToolTipAnimator instanceof DefaultToolTipAnimator) {
+            startBatchAnimation(TipBatchAnimator.popup(addedViews, mAnimationDuration, mStaggerDelay),
+                    addedViews, true);
+        } else {
+            for (int i = 0; i < addedViews.size(); i++) {
+                View tipView = addedViews.get(i);
+                startAnimation(mToolTipAnimator.popup(tipView, mAnimationDuration), tipView, true);
+            }
+        }
+        return shownViews;
+    }
+
+    /**
+     * Same as {@link #show(ToolTip)}, but the message text is measured on a background thread
+     * first. Attaching, positioning and animating the tip then happen on the main thread.
+     * Must be called from the main thread.
+     *
+     * @param toolTip tool tip to show
+     * @param callback called on the main thread once the tip is shown, or right away if a tip
+     *                 already exists near the anchor view. Not called if the tip is cancelled
+     * @return handle to cancel the tip before it is shown. The tip is also cancelled if the
+     * anchor view is detached from its window before then
+     */
+    @NonNull
+    public PendingTip showAsync(@NonNull final ToolTip toolTip, @Nullable final ShowCallback callback) {
+        final PendingTip pendingTip = new PendingTip(toolTip.getAnchorView());
+        final int releaseCount = mReleaseCount;
+        if (!canCreate(toolTip)) {
+            pendingTip.cancel();
+            return pendingTip;
+        }
+
+        View existingTipView = findExisting(toolTip);
+        if (existingTipView != null) {
+            pendingTip.finish();
+            if (callback != null) {
+                callback.onTipShown(existingTipView);
+            }
+            return pendingTip;
+        }
+
+        final TextView tipView = prepareTipView(toolTip);
+        final TextLayoutCache.Request request = TextLayoutCache.Request.from(tipView, toolTip);
+
+        getTextMeasureExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                if (!pendingTip.isCancelled()) {
+                    request.prepare();
+                }
+                getMainHandler().post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (releaseCount != mReleaseCount) {
+                            // the manager was released meanwhile, keep nothing of it
+                            pendingTip.cancel();
+                            return;
+                        }
+                        if (pendingTip.isCancelled() || toolTip.getAnchorView().getWindowToken() == null) {
+                            pendingTip.cancel();
+                            recycleTipView(tipView);
+                            return;
+                        }
+                        pendingTip.finish();
+
+                        // a tip may have been shown near the anchor in the meantime
+                        View existingTipView = findExisting(toolTip);
+                        if (existingTipView != null) {
+                            recycleTipView(tipView);
+                        } else {
+                            existingTipView = attachTipView(tipView, toolTip);
+                            if (existingTipView == tipView) {
+                                startAnimation(mToolTipAnimator.popup(tipView, mAnimationDuration),
+                                        tipView, true);
+                            }
+                        }
+                        if (callback != null) {
+                            callback.onTipShown(existingTipView);
+                        }
+                    }
+                });
+            }
+        });
+
+        return pendingTip;
+    }
+
+    private View create(ToolTip toolTip) {
+
+        if (!canCreate(toolTip)) {
+            return null;
+        }
+
+        // only one tip is allowed near an anchor view at the same time, thus
+        // reuse tip if already exist
+        View existingTipView = findExisting(toolTip);
+        if (existingTipView != null) {
+            return existingTipView;
+        }
+
+        TextView tipView = prepareTipView(toolTip);
+        return attachTipView(tipView, toolTip);
+
+    }
+
+    private boolean canCreate(ToolTip toolTip) {
+        if (toolTip.getAnchorView() == null) {
+            Log.e(TAG, "Unable to create a tip, anchor view is null");
+            return false;
+        }
+
+        if (toolTip.getRootView() == null) {
+            Log.e(TAG, "Unable to create a tip, root layout is null");
+            return false;
+        }
+
+        // dismissed before, possibly in an earlier launch
+        if (mSeenTipsStore != null && toolTip.getSeenKey() != null
+                && mSeenTipsStore.isSeen(toolTip.getSeenKey())) {
+            return false;
+        }
+        return true;
+    }
+
+    @Nullable
+    private View findExisting(ToolTip toolTip) {
+        return mMultipleTipsPerAnchor ? null : getTipView(mTips.find(toolTip.getAnchorView()));
+    }
+
+    /**
+     * @return the view showing a registered tip, the overlay for an overlay tip
+     */
+    @Nullable
+    private static View getTipView(@Nullable Object tip) {
+        if (tip instanceof ToolTipOverlayView.Tip) {
+            return ((ToolTipOverlayView.Tip) tip).getHost();
+        }
+        return (View) tip;
+    }
+
+    /**
+     * Create and style the tip view, not yet added to the root
+     */
+    private TextView prepareTipView(ToolTip toolTip) {
+        ToolTipMetrics metrics = mMetricsListener != null ?
+                new ToolTipMetrics(true) : ToolTipMetrics.TRACE_ONLY;
+
+        // init tip view parameters, reusing a pooled view when possible
+        ToolTipView tipView = createTipView(toolTip, metrics);
+        tipView.setMetrics(metrics);
+        tipView.setSeenKey(toolTip.getSeenKey() != null ? SeenTipsFile.hash(toolTip.getSeenKey()) : 0);
+        metrics.begin(ToolTipMetrics.PHASE_BACKGROUND);
+
+        // start from the position asked for or the first candidate, whatever an earlier show of
+        // this tip resolved. The best fit is picked once the tip is measured
+        toolTip.resetShownPosition();
+
+        // on RTL layouts replace sides, the direction holds for the rest of this show
+        toolTip.setRtl(UiUtils.isRtl(toolTip.getRootView()));
+        if (toolTip.isRtl()) {
+            switchToolTipSidePosition(toolTip);
+        }
+
+        // set tool tip background / shape
+        ToolTipBackgroundConstructor.setBackground(tipView, toolTip);
+        metrics.end(ToolTipMetrics.PHASE_BACKGROUND);
+
+        return tipView;
+    }
+
+    /**
+     * Add a prepared tip view to the root, position and register it.
+     * In overlay mode the tip is handed to the root's overlay instead, and the view recycled.
+     *
+     * @return the view showing the tip
+     */
+    private View attachTipView(TextView tipView, ToolTip toolTip) {
+        if (mRenderMode == RENDER_MODE_OVERLAY && tipView instanceof ToolTipView) {
+            return attachOverlayTip((ToolTipView) tipView, toolTip);
+        }
+
+        // add tip to root layout
+        getTipParent(toolTip).addView(tipView);
+
+        positionTipView(tipView, toolTip);
+        registerTipView(tipView, toolTip);
+        return tipView;
+    }
+
+    private void registerTipView(TextView tipView, ToolTip toolTip) {
+        // enter tip to registry by anchor view, keeping the id for listeners
+        if (tipView instanceof ToolTipView) {
+            ((ToolTipView) tipView).setRoot(toolTip.getRootView());
+            ((ToolTipView) tipView).setToolTip(toolTip);
+        }
+        addTip(tipView, toolTip);
+        indexHostedTip(tipView);
+        if (mCollisionPass != null) {
+            mCollisionPass.schedule(toolTip.getRootView());
+        }
+
+        if (toolTip.tracksAnchor()) {
+            mAnchorTracker.track(tipView, toolTip.getAnchorView(), toolTip.getRootView(),
+                    toolTip.isRtl());
+        }
+    }
+
+    /**
+     * @return the view group a tip view is added to
+     */
+    private ViewGroup getTipParent(ToolTip toolTip) {
+        if (!mIsolatedLayout) {
+            return toolTip.getRootView();
+        }
+        ToolTipHostLayout host = ToolTipHostLayout.obtain(toolTip.getRootView());
+        if (!mHosts.contains(host)) {
+            host.setOnTipTouchListener(mHostTipTouchListener);
+            mHosts.add(host);
+        }
+        return host;
+    }
+
+    /**
+     * Remove the hosts which have no tips left from their root
+     *
+     * @param root the root to remove the host of, or null for all roots
+     */
+    private void removeEmptyHosts(@Nullable ViewGroup root) {
+        for (int i = mHosts.size() - 1; i >= 0; i--) {
+            ToolTipHostLayout host = mHosts.get(i);
+            if (host.getChildCount() == 0 && (root == null || host.getParent() == root)) {
+                mHosts.remove(i);
+                host.setOnTipTouchListener(null);
+                ViewParent parent = host.getParent();
+                if (parent instanceof ViewGroup) {
+                    ((ViewGroup) parent).removeView(host);
+                }
+            }
+        }
+    }
+
+    /**
+     * Let the host of a positioned tip view know where it is, for touches
+     */
+    private static void indexHostedTip(View tipView) {
+        if (tipView.getParent() instanceof ToolTipHostLayout) {
+            ((ToolTipHostLayout) tipView.getParent()).indexTip(tipView);
+        }
+    }
+
+    private boolean onTouchOutsideTips() {
+        if (!mDismissOnOutsideTouch) {
+            return false;
+        }
+        // not while the touch is dispatched, an overlay leaves its root with its last tip
+        getMainHandler().post(mDismissAllRunnable);
+        return !mOutsideTouchThrough;
+    }
+
+    private void addTip(Object tip, ToolTip toolTip) {
+        View anchorView = toolTip.getAnchorView();
+        mTips.add(anchorView, anchorView.getId(), tip, toolTip.getGroup());
+        mRootDetachWatcher.add(toolTip.getRootView());
+    }
+
+    private void removeTip(Object tip) {
+        mTips.remove(tip);
+        ViewGroup root = getRoot(tip);
+        if (root != null) {
+            mRootDetachWatcher.remove(root);
+        }
+    }
+
+    /**
+     * @return the root showing a registered tip
+     */
+    @Nullable
+    private static ViewGroup getRoot(Object tip) {
+        if (tip instanceof ToolTipOverlayView.Tip) {
+            return ((ToolTipOverlayView.Tip) tip).getHost().getRoot();
+        }
+        return tip instanceof ToolTipView ? ((ToolTipView) tip).getRoot() : null;
+    }
+
+    /**
+     * Create, measure and position a tip view ahead of time, without adding it to the root
+     *
+     * @return the tip view, or null if the tip cannot be shown
+     */
+    @Nullable
+    TextView preparePlacedTipView(ToolTip toolTip) {
+        if (!canCreate(toolTip)) {
+            return null;
+        }
+        TextView tipView = prepareTipView(toolTip);
+        placeDetachedTipView(tipView, toolTip);
+        return tipView;
+    }
+
+    /**
+     * Show a tip view from {@link #preparePlacedTipView(ToolTip)}
+     *
+     * @param reposition true if the anchor or root moved since the tip view was prepared
+     * @return the view showing the tip, an existing tip near the anchor view if there is one
+     */
+    View showPlacedTipView(TextView tipView, ToolTip toolTip, boolean reposition) {
+        View existingTipView = findExisting(toolTip);
+        if (existingTipView != null) {
+            recycleTipView(tipView);
+            return existingTipView;
+        }
+
+        getTipParent(toolTip).addView(tipView);
+        if (reposition) {
+            positionTipView(tipView, toolTip);
+        }
+        registerTipView(tipView, toolTip);
+        startAnimation(mToolTipAnimator.popup(tipView, mAnimationDuration), tipView, true);
+        return tipView;
+    }
+
+    /**
+     * Give back a prepared tip view which will not be shown
+     */
+    void discardPlacedTipView(TextView tipView) {
+        recycleTipView(tipView);
+    }
+
+    private void placeDetachedTipView(TextView tipView, ToolTip toolTip) {
+        // measured and positioned like an added view, without adding it
+        if (tipView.getLayoutParams() == null) {
+            tipView.setLayoutParams(new ViewGroup.LayoutParams(
+                    ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+        }
+        positionTipView(tipView, toolTip);
+    }
+
+    private View attachOverlayTip(ToolTipView tipView, ToolTip toolTip) {
+        placeDetachedTipView(tipView, toolTip);
+
+        // where the root would lay the tip view out, at its padding start, plus the translation
+        ViewGroup root = toolTip.getRootView();
+        int left = !toolTip.isRtl() ?
+                root.getPaddingLeft() + (int) tipView.getTranslationX() :
+                root.getWidth() - root.getPaddingRight() - tipView.getMeasuredWidth()
+                        + (int) tipView.getTranslationX();
+        int top = root.getPaddingTop() + (int) tipView.getTranslationY();
+
+        ToolTipOverlayView overlay = obtainOverlay(toolTip);
+        ToolTipOverlayView.Tip tip = overlay.addTip(tipView, toolTip, left, top);
+        // the overlay draws the background now, the pooled view must not reuse it
+        ToolTipBackgroundConstructor.clearBackground(tipView);
+        // overlay tips are drawn with the overlay's next frame, without animation
+        reportShown(tipView, overlay);
+        // pooled with its root, so the view is evicted when the root leaves its window
+        tipView.setRoot(root);
+        recycleTipView(tipView);
+
+        addTip(tip, toolTip);
+        return overlay;
+    }
+
+    private ToolTipOverlayView obtainOverlay(ToolTip toolTip) {
+        ViewGroup root = toolTip.getRootView();
+        for (int i = 0; i < mOverlays.size(); i++) {
+            if (mOverlays.get(i).getRoot() == root) {
+                return mOverlays.get(i);
+            }
+        }
+        ToolTipOverlayView overlay = new ToolTipOverlayView(toolTip.getContext(), root);
+        overlay.setOnTipClickListener(mOverlayTipClickListener);
+        root.addView(overlay, new ViewGroup.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+        mOverlays.add(overlay);
+        return overlay;
+    }
+
+    /**
+     * Move a measured tip view next to its anchor, by translation
+     */
+    private void positionTipView(TextView tipView, ToolTip toolTip) {
+        ToolTipMetrics metrics = tipView instanceof ToolTipView ?
+                ((ToolTipView) tipView).getMetrics() : ToolTipMetrics.TRACE_ONLY;
+
+        // the only measure before placing, the finder places the tip at its measured size
+        metrics.begin(ToolTipMetrics.PHASE_MEASURE);
+        measureTipView(tipView);
+        metrics.end(ToolTipMetrics.PHASE_MEASURE);
+
+        metrics.begin(ToolTipMetrics.PHASE_PLACE);
+        // move to the first candidate position the tip fits in, with the matching arrow
+        int[] candidatePositions = toolTip.getCandidatePositions();
+        if (candidatePositions != null) {
+            selectBestFitPosition(tipView, toolTip, candidatePositions);
+        }
+
+        // find where to position the tool tip
+        Point p = mTipPosition;
+        ToolTipCoordinatesFinder.getCoordinates(tipView, toolTip, p);
+
+        // move tip view to correct position
+        moveTipToCorrectPosition(tipView, toolTip, p);
+
+        // keep the arrow on the anchor if the tip was clamped to the root bounds
+        pointArrowAtAnchor(tipView, toolTip, p);
+        metrics.end(ToolTipMetrics.PHASE_PLACE);
+    }
+
+    /**
+     * Move a shown tip view to another side of its anchor, keeping its width
+     */
+    private void placeAtPosition(TextView tipView, ToolTip toolTip, int position) {
+        toolTip.setShownPosition(position);
+        ToolTipBackgroundConstructor.setBackground(tipView, toolTip);
+        // the arrow side changes the padding
+        measureTipView(tipView);
+
+        Point p = mTipPosition;
+        ToolTipCoordinatesFinder.getCoordinates(tipView, toolTip, p);
+        moveTipToCorrectPosition(tipView, toolTip, p);
+        pointArrowAtAnchor(tipView, toolTip, p);
+    }
+
+    private void moveTipToCorrectPosition(TextView tipView, ToolTip toolTip, Point p) {
+        // the tip was just added and is not laid out yet, so it sits at the root origin.
+        // measure from the root since a recycled view still holds its previous layout position
+        ViewGroup root = toolTip.getRootView();
+        Coordinates rootCoordinates = mScratchCoordinates.set(root);
+        int translationX = p.x - (rootCoordinates.left - root.getScrollX());
+        int translationY = p.y - (rootCoordinates.top - root.getScrollY());
+        tipView.setTranslationX(!toolTip.isRtl() ? translationX : -translationX);
+        tipView.setTranslationY(translationY);
+    }
+
+    private void pointArrowAtAnchor(TextView tipView, ToolTip toolTip, Point p) {
+        if (!(tipView.getBackground() instanceof ToolTipDrawable)) {
+            return;
+        }
+        ToolTipDrawable background = (ToolTipDrawable) tipView.getBackground();
+        ViewGroup root = toolTip.getRootView();
+
+        int tipLeft;
+        if (!toolTip.isRtl()) {
+            // p is relative to the root padding, add it back to get the tip's screen position
+            tipLeft = p.x + root.getPaddingLeft();
+        } else {
+            // laid out at the root's padding end and moved by the mirrored translation,
+            // as moveTipToCorrectPosition does
+            Coordinates rootCoordinates = mScratchCoordinates.set(root);
+            int originX = rootCoordinates.left - root.getScrollX();
+            tipLeft = originX + root.getWidth() - root.getPaddingRight() - tipView.getMeasuredWidth()
+                    - (p.x - originX);
+        }
+        int tipTop = p.y + root.getPaddingTop();
+        Coordinates anchorCoordinates = mScratchCoordinates.set(toolTip.getAnchorView());
+        switch (background.getArrowSide()) {
+            case ToolTipDrawable.ARROW_TOP:
+            case ToolTipDrawable.ARROW_BOTTOM:
+                background.setArrowAnchor(anchorCoordinates.left - tipLeft,
+                        anchorCoordinates.right - tipLeft);
+                break;
+            case ToolTipDrawable.ARROW_LEFT:
+            case ToolTipDrawable.ARROW_RIGHT:
+                background.setArrowAnchor(anchorCoordinates.top - tipTop,
+                        anchorCoordinates.bottom - tipTop);
+                break;
+        }
+    }
+
+    @NonNull
+    private ToolTipView createTipView(ToolTip toolTip, ToolTipMetrics metrics) {
+        metrics.begin(ToolTipMetrics.PHASE_CREATE);
+        ToolTipView tipView = mTipViewPool.acquire(toolTip.getContext(),
+                toolTip.getTextAppearanceStyle(), toolTip.getTypeface());
+        boolean recycled = tipView != null;
+        if (!recycled) {
+            tipView = newTipView(toolTip.getContext());
+        }
+        metrics.end(ToolTipMetrics.PHASE_CREATE);
+
+        metrics.begin(ToolTipMetrics.PHASE_STYLE);
+        if (!recycled) {
+            styleNewTipView(tipView, toolTip.getContext(), toolTip.getTextAppearanceStyle(),
+                    toolTip.getTypeface());
+        } else {
+            resetRecycledTipView(tipView);
+        }
+        tipView.setText(toolTip.getMessage());
+        tipView.setVisibility(View.INVISIBLE);
+        tipView.setGravity(toolTip.getTextGravity());
+        setTipViewElevation(tipView, toolTip);
+        setTipViewMaxWidth(tipView, toolTip);
+        metrics.end(ToolTipMetrics.PHASE_STYLE);
+        return tipView;
+    }
+
+    /**
+     * Every tip view is created here, tests count them
+     */
+    @VisibleForTesting
+    ToolTipView newTipView(Context context) {
+        return new ToolTipView(context);
     }
 
-    public ToolTipsManager(@NonNull TipListener listener){
-        this();
-        mListener = listener;
+    /**
+     * Tests check no view of a screen which is gone stays pooled
+     */
+    @VisibleForTesting
+    boolean hasPooledViews(Context context) {
+        return mTipViewPool.contains(context);
     }
 
-    public View show(ToolTip toolTip) {
-        View tipView = create(toolTip);
-        if (tipView == null) {
-            return null;
-        }
-
-        // animate tip visibility
-        mToolTipAnimator.popup(tipView, mAnimationDuration).start();
+    private void styleNewTipView(ToolTipView tipView, Context context,
+                                 @StyleRes int textAppearanceStyle, @Nullable Typeface typeface) {
+        setTextAppearance(tipView, context, textAppearanceStyle);
+        setTextTypeFace(tipView, typeface);
+        tipView.setStyledWith(textAppearanceStyle, typeface);
 
-        return tipView;
+        // set dismiss on click
+        tipView.setOnClickListener(mTipClickListener);
+        tipView.setDismissListener(new DismissListener(tipView));
     }
 
-    private View create(ToolTip toolTip) {
-
-        if (toolTip.getAnchorView() == null) {
-            Log.e(TAG, "Unable to create a tip, anchor view is null");
-            return null;
+    /**
+     * Undo whatever the previous show / dismiss left on a pooled view
+     */
+    private void resetRecycledTipView(TextView tipView) {
+        tipView.setTranslationX(0);
+        tipView.setTranslationY(0);
+        tipView.setAlpha(1);
+        tipView.setScaleX(1);
+        tipView.setScaleY(1);
+        tipView.setMaxWidth(Integer.MAX_VALUE);
+        ViewGroup.LayoutParams params = tipView.getLayoutParams();
+        if (params != null) {
+            params.width = ViewGroup.LayoutParams.WRAP_CONTENT;
+            params.height = ViewGroup.LayoutParams.WRAP_CONTENT;
         }
-
-        if (toolTip.getRootView() == null) {
-            Log.e(TAG, "Unable to create a tip, root layout is null");
-            return null;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            tipView.setElevation(0);
+            tipView.setOutlineProvider(ViewOutlineProvider.BACKGROUND);
         }
+    }
 
-        // only one tip is allowed near an anchor view at the same time, thus
-        // reuse tip if already exist
-        if (mTipsMap.containsKey(toolTip.getAnchorView().getId())) {
-            return mTipsMap.get(toolTip.getAnchorView().getId());
+    /**
+     * Detach a dismissed tip view from its root and keep it for reuse
+     */
+    private void recycleTipView(View tipView) {
+        ViewGroup root = detachTipView(tipView);
+        if (tipView instanceof ToolTipView) {
+            mTipViewPool.release((ToolTipView) tipView, root);
         }
+    }
 
-        // init tip view parameters
-        TextView tipView = createTipView(toolTip);
-
-        // on RTL languages replace sides
-        if (UiUtils.isRtl()) {
-            switchToolTipSidePosition(toolTip);
+    /**
+     * Detach a dismissed tip view which was handed to the tip listener, and keep it for reuse
+     * once the current message is handled, so code still holding it then does not see it reused
+     */
+    private void recycleTipViewLater(View tipView) {
+        ViewGroup root = detachTipView(tipView);
+        if (!(tipView instanceof ToolTipView)) {
+            return;
         }
+        if (mDismissedTipViews.isEmpty()) {
+            getMainHandler().post(mPoolDismissedTipViews);
+        }
+        mDismissedTipViews.add((ToolTipView) tipView);
+        mDismissedTipRoots.add(root);
+    }
 
-        // set tool tip background / shape
-        ToolTipBackgroundConstructor.setBackground(tipView, toolTip);
-
-        // add tip to root layout
-        toolTip.getRootView().addView(tipView);
-
-        // find where to position the tool tip
-        Point p = ToolTipCoordinatesFinder.getCoordinates(tipView, toolTip);
-
-        // move tip view to correct position
-        moveTipToCorrectPosition(tipView, p);
+    private void poolDismissedTipViews() {
+        for (int i = 0; i < mDismissedTipViews.size(); i++) {
+            mTipViewPool.release(mDismissedTipViews.get(i), mDismissedTipRoots.get(i));
+        }
+        mDismissedTipViews.clear();
+        mDismissedTipRoots.clear();
+    }
 
-        // set dismiss on click
-        tipView.setOnClickListener(new View.OnClickListener() {
-            @Override
-            public void onClick(View view) {
-                dismiss(view, true);
+    /**
+     * Forget dismissed tip views not pooled yet which were shown in a root which left its window
+     */
+    private void dropDismissedTipViews(ViewGroup root) {
+        for (int i = mDismissedTipViews.size() - 1; i >= 0; i--) {
+            if (mDismissedTipRoots.get(i) == root
+                    || mDismissedTipViews.get(i).getContext() == root.getContext()) {
+                mDismissedTipViews.remove(i);
+                mDismissedTipRoots.remove(i);
             }
-        });
+        }
+    }
 
-        // bind tipView with anchorView id
-        int anchorViewId = toolTip.getAnchorView().getId();
-        tipView.setTag(anchorViewId);
+    /**
+     * Remove a dismissed tip view from its root and reset what it holds of the tip
+     *
+     * @return the root the view was shown in, or null
+     */
+    @Nullable
+    private ViewGroup detachTipView(View tipView) {
+        mAnchorTracker.untrack(tipView);
+        ViewParent parent = tipView.getParent();
+        if (parent instanceof ViewGroup) {
+            ((ViewGroup) parent).removeView(tipView);
+        }
+        if (parent instanceof ToolTipHostLayout && ((ToolTipHostLayout) parent).getChildCount() == 0) {
+            // do not leave an empty host in the root, but not at once: removing it lays the root
+            // out, and a tip shown again soon would add it back
+            getMainHandler().removeCallbacks(mRemoveEmptyHosts);
+            getMainHandler().postDelayed(mRemoveEmptyHosts, EMPTY_HOST_TIMEOUT_MS);
+        }
+        if (!(tipView instanceof ToolTipView)) {
+            return null;
+        }
+        ToolTipView toolTipView = (ToolTipView) tipView;
+        ViewGroup root = toolTipView.getRoot();
+        toolTipView.setRoot(null);
+        toolTipView.setToolTip(null);
+        toolTipView.setMetrics(ToolTipMetrics.TRACE_ONLY);
+        return root;
+    }
 
-        // enter tip to map by 'anchorView' id
-        mTipsMap.put(anchorViewId, tipView);
+    /**
+     * Report phase timings of each show and frame counts of each animation,
+     * or null to stop. Phases are traced as sections either way.
+     */
+    public void setMetricsListener(@Nullable MetricsListener listener) {
+        mMetricsListener = listener;
+    }
 
-        return tipView;
+    private void startAnimation(Animator animator, View tipView, boolean show) {
+        trackRunningAnimator(animator);
+        if (mMetricsListener != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            new TipFrameMonitor(mMetricsListener, tipView,
+                    show ? Collections.singletonList(tipView) : null, show).start(animator);
+            return;
+        }
+        animator.start();
+        if (show) {
+            reportShown(tipView, tipView);
+        }
+    }
 
+    private void startBatchAnimation(Animator animator, List<View> tipViews, boolean show) {
+        trackRunningAnimator(animator);
+        if (mMetricsListener != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            new TipFrameMonitor(mMetricsListener, null, show ? tipViews : null, show).start(animator);
+            return;
+        }
+        animator.start();
+        if (show) {
+            for (int i = 0; i < tipViews.size(); i++) {
+                reportShown(tipViews.get(i), tipViews.get(i));
+            }
+        }
     }
 
-    private void moveTipToCorrectPosition(TextView tipView, Point p) {
-        Coordinates tipViewCoordinates = new Coordinates(tipView);
-        int translationX = p.x - tipViewCoordinates.left;
-        int translationY = p.y - tipViewCoordinates.top;
-        tipView.setTranslationX(!UiUtils.isRtl() ? translationX : -translationX);
-        tipView.setTranslationY(translationY);
+    private void trackRunningAnimator(Animator animator) {
+        animator.addListener(mRunningAnimatorTracker);
+        mRunningAnimators.add(animator);
     }
 
-    @NonNull
-    private TextView createTipView(ToolTip toolTip) {
-        TextView tipView = new TextView(toolTip.getContext());
-        tipView.setText(toolTip.getMessage());
-        tipView.setVisibility(View.INVISIBLE);
-        tipView.setGravity(toolTip.getTextGravity());
-        setTextAppearance(tipView, toolTip);
-        setTextTypeFace(tipView, toolTip);
-        setTipViewElevation(tipView, toolTip);
-        setTipViewMaxWidth(tipView, toolTip);
-        return tipView;
+    /**
+     * Report the show metrics of a tip view right away, without the first frame
+     *
+     * @param shownView the view showing the tip
+     */
+    private void reportShown(View tipView, View shownView) {
+        if (mMetricsListener == null || !(tipView instanceof ToolTipView)) {
+            return;
+        }
+        ToolTipMetrics metrics = ((ToolTipView) tipView).getMetrics();
+        if (metrics.isRecording()) {
+            ((ToolTipView) tipView).setMetrics(ToolTipMetrics.TRACE_ONLY);
+            mMetricsListener.onTipShown(shownView, metrics);
+        }
     }
 
-    private void setTextAppearance(TextView tipView, ToolTip toolTip) {
+    private void setTextAppearance(TextView tipView, Context context, @StyleRes int textAppearanceStyle) {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-            tipView.setTextAppearance(toolTip.getTextAppearanceStyle());
+            tipView.setTextAppearance(textAppearanceStyle);
         } else {
-            tipView.setTextAppearance(toolTip.getContext(), toolTip.getTextAppearanceStyle());
+            tipView.setTextAppearance(context, textAppearanceStyle);
         }
     }
 
     /**
      * Sets the custom typeface on the tipView if it was provided via {@link ToolTip}.
      */
-    private void setTextTypeFace(TextView tipView, ToolTip toolTip) {
-        if (toolTip.getTypeface() != null) {
+    private void setTextTypeFace(TextView tipView, @Nullable Typeface typeface) {
+        if (typeface != null) {
             Typeface existingTypeFace = tipView.getTypeface();
             if (existingTypeFace != null) {
                 // Preserve the text style defined in the text appearance style if available
-                tipView.setTypeface(toolTip.getTypeface(), existingTypeFace.getStyle());
+                tipView.setTypeface(typeface, existingTypeFace.getStyle());
             } else {
-                tipView.setTypeface(toolTip.getTypeface());
+                tipView.setTypeface(typeface);
             }
         }
     }
 
     private void setTipViewElevation(TextView tipView, ToolTip toolTip) {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-            if (toolTip.getElevation() > 0) {
-                ViewOutlineProvider viewOutlineProvider = new ViewOutlineProvider() {
-                    @SuppressLint("NewApi")
-                    @Override
-                    public void getOutline(View view, Outline outline) {
-                        outline.setEmpty();
-                    }
-                };
-                tipView.setOutlineProvider(viewOutlineProvider);
+            if (toolTip.getElevation() > 0 && !toolTip.usesLegacyBackground()) {
+                // the drawn bubble provides its own outline for a real shadow
+                tipView.setOutlineProvider(ViewOutlineProvider.BACKGROUND);
+                tipView.setElevation(toolTip.getElevation());
+            } else if (toolTip.getElevation() > 0) {
+                if (sEmptyOutlineProvider == null) {
+                    sEmptyOutlineProvider = new ViewOutlineProvider() {
+                        @SuppressLint("NewApi")
+                        @Override
+                        public void getOutline(View view, Outline outline) {
+                            outline.setEmpty();
+                        }
+                    };
+                }
+                tipView.setOutlineProvider(sEmptyOutlineProvider);
                 tipView.setElevation(toolTip.getElevation());
             }
         }
@@ -200,18 +1365,91 @@ public class ToolTipsManager {
         }
     }
 
+    private void selectBestFitPosition(TextView tipView, ToolTip toolTip, int[] candidatePositions) {
+        int[] positions = candidatePositions;
+        if (toolTip.isRtl()) {
+            if (mScratchPositions.length != candidatePositions.length) {
+                mScratchPositions = new int[candidatePositions.length];
+            }
+            positions = mScratchPositions;
+            for (int i = 0; i < positions.length; i++) {
+                positions[i] = getSwitchedSidePosition(candidatePositions[i]);
+            }
+        }
+
+        int position = ToolTipCoordinatesFinder.findBestFitPosition(tipView, toolTip, positions);
+        if (position != toolTip.getPosition()) {
+            toolTip.setShownPosition(position);
+            ToolTipBackgroundConstructor.setBackground(tipView, toolTip);
+            // the arrow side changes the padding
+            measureTipView(tipView);
+        }
+    }
+
+    private static void measureTipView(TextView tipView) {
+        tipView.measure(ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT);
+    }
+
     private void switchToolTipSidePosition(ToolTip toolTip) {
-        if (toolTip.positionedLeftTo()) {
-            toolTip.setPosition(ToolTip.POSITION_RIGHT_TO);
-        } else if (toolTip.positionedRightTo()) {
-            toolTip.setPosition(ToolTip.POSITION_LEFT_TO);
+        toolTip.setShownPosition(getSwitchedSidePosition(toolTip.getPosition()));
+    }
+
+    @ToolTip.Position
+    private static int getSwitchedSidePosition(@ToolTip.Position int position) {
+        if (position == ToolTip.POSITION_LEFT_TO) {
+            return ToolTip.POSITION_RIGHT_TO;
+        } else if (position == ToolTip.POSITION_RIGHT_TO) {
+            return ToolTip.POSITION_LEFT_TO;
+        }
+        return position;
+    }
+
+    /**
+     * Set the executor {@link #showAsync(ToolTip, ShowCallback)} measures text on.
+     * By default a single background thread shared by all managers is used.
+     */
+    public void setTextMeasureExecutor(@NonNull Executor executor) {
+        mTextMeasureExecutor = executor;
+    }
+
+    private Executor getTextMeasureExecutor() {
+        if (mTextMeasureExecutor != null) {
+            return mTextMeasureExecutor;
+        }
+        synchronized (ToolTipsManager.class) {
+            if (sDefaultTextMeasureExecutor == null) {
+                sDefaultTextMeasureExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                    @Override
+                    public Thread newThread(@NonNull Runnable runnable) {
+                        Thread thread = new Thread(runnable, "ToolTipsTextMeasure");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+            }
+            return sDefaultTextMeasureExecutor;
         }
     }
 
+    private Handler getMainHandler() {
+        if (mMainHandler == null) {
+            mMainHandler = new Handler(Looper.getMainLooper());
+        }
+        return mMainHandler;
+    }
+
     public void setAnimationDuration(int duration){
         mAnimationDuration = duration;
     }
 
+    /**
+     * Delay between the animations of the tips shown by {@link #showAll(List)} or
+     * dismissed by {@link #dismissAll()}, none by default
+     */
+    public void setStaggerDelay(long delay) {
+        mStaggerDelay = delay;
+    }
+
     /**
      * Set a custom tooltip animator to override show and hide animation.
      * @param animator ToolTipAnimator
@@ -220,52 +1458,351 @@ public class ToolTipsManager {
         mToolTipAnimator = animator;
     }
 
+    /**
+     * By default showing a tip near an anchor view which already has one returns the existing
+     * tip. Set to true to show any number of tips per anchor view.
+     */
+    public void setMultipleTipsPerAnchor(boolean value) {
+        mMultipleTipsPerAnchor = value;
+    }
+
+    /**
+     * Show the tips one after the other, each once the previous one is dismissed by the user
+     * or by {@link ToolTipTour#next()}. The next tip is created, measured and positioned while
+     * the current one is on screen. Starting a tour cancels the tour running before.
+     *
+     * @param steps tips in order
+     * @param listener notified as the tour moves on, or null
+     * @return the running tour
+     */
+    @NonNull
+    public ToolTipTour startTour(@NonNull List<ToolTip> steps, @Nullable ToolTipTour.Listener listener) {
+        if (mTour != null) {
+            mTour.cancel();
+        }
+        ToolTipTour tour = new ToolTipTour(this, steps, listener);
+        mTour = tour;
+        tour.start();
+        return tour;
+    }
+
+    void onTourFinished(ToolTipTour tour) {
+        if (mTour == tour) {
+            mTour = null;
+        }
+    }
+
+    /**
+     * Remember dismissed tips built with {@link ToolTip.Builder#setSeenKey(String)} in the store,
+     * and do not show them again. Every dismissal reported to the {@link TipListener} counts.
+     *
+     * @param store store to use, or null to show every tip
+     */
+    public void setSeenTipsStore(@Nullable SeenTipsStore store) {
+        mSeenTipsStore = store;
+    }
+
+    private void markSeen(long seenKey) {
+        if (mSeenTipsStore != null && seenKey != 0) {
+            mSeenTipsStore.markSeen(seenKey);
+        }
+    }
+
+    /**
+     * Add the tip views of each root to one container filling the root, instead of adding them
+     * to the root itself. The root lays the container out once, after that showing or dismissing
+     * a tip only measures and lays out the container's children, not the rest of the screen.
+     * Recommended when the root is a RelativeLayout, ConstraintLayout or any layout which is
+     * costly to measure. Off by default. When turned off, the containers are removed once
+     * the tips shown in them are dismissed.
+     */
+    public void setIsolatedLayout(boolean value) {
+        mIsolatedLayout = value;
+        if (!value) {
+            removeEmptyHosts(null);
+        }
+    }
+
+    /**
+     * Move apart the tip views of a root which overlap. Once per frame in which tips were shown
+     * in a root, before it draws, all its tips are checked in show order: a tip overlapping an
+     * earlier tip moves to another side of its anchor where it fits and is free, else it slides
+     * along its anchor's side past the tips in its way. Tips which cannot be moved clear stay
+     * where they are. Tips do not move again when other tips are dismissed. Only applies to
+     * {@link #RENDER_MODE_VIEWS}. Off by default.
+     */
+    public void setAvoidCollisions(boolean value) {
+        if (value && mCollisionPass == null) {
+            mCollisionPass = new TipCollisionPass(mCollisionCallback);
+        } else if (!value && mCollisionPass != null) {
+            mCollisionPass.cancelAll();
+            mCollisionPass = null;
+        }
+    }
+
+    /**
+     * Dismiss all tips when the user touches the screen outside of them. Touches are only seen
+     * by the view which dispatches them to the tips of a root, so this needs
+     * {@link #setIsolatedLayout(boolean)} or {@link #RENDER_MODE_OVERLAY}. Off by default.
+     */
+    public void setDismissOnOutsideTouch(boolean value) {
+        mDismissOnOutsideTouch = value;
+    }
+
+    /**
+     * Whether a touch outside the tips which dismisses them also reaches the views below,
+     * true by default. Set to false to have that touch only dismiss the tips.
+     */
+    public void setOutsideTouchThrough(boolean value) {
+        mOutsideTouchThrough = value;
+    }
+
+    /**
+     * Set how tips shown from now on are rendered, {@link #RENDER_MODE_VIEWS} by default.
+     * In {@link #RENDER_MODE_OVERLAY} all tips of a root are drawn by one overlay view, which
+     * is what {@link #show(ToolTip)} returns. Overlay tips are not animated, do not cast a
+     * shadow and do not track their anchor view. Dismissing the overlay dismisses all its tips.
+     */
+    public void setRenderMode(@RenderMode int renderMode) {
+        mRenderMode = renderMode;
+    }
+
     public boolean dismiss(View tipView, boolean byUser) {
-        if (tipView != null && isVisible(tipView)) {
-            int key = (int) tipView.getTag();
-            mTipsMap.remove(key);
-            animateDismiss(tipView, byUser);
+        if (tipView instanceof ToolTipOverlayView) {
+            return dismissOverlay((ToolTipOverlayView) tipView, byUser);
+        }
+
+        // a tip already being dismissed is no longer in the registry
+        if (tipView != null && isVisible(tipView) && mTips.contains(tipView)) {
+            int anchorViewId = mTips.getAnchorId(tipView);
+            removeTip(tipView);
+            animateDismiss(tipView, anchorViewId, byUser);
             return true;
         }
         return false;
     }
 
+    /**
+     * Dismiss the tip of the first anchor view with this id. Prefer
+     * {@link #findAndDismiss(View)}, anchor views need not have unique ids.
+     */
     public boolean dismiss(Integer key) {
-        return mTipsMap.containsKey(key) && dismiss(mTipsMap.get(key), false);
+        Object tip = key != null ? mTips.findById(key) : null;
+        if (tip instanceof ToolTipOverlayView.Tip) {
+            return dismissOverlayTip((ToolTipOverlayView.Tip) tip, false);
+        }
+        return dismiss((View) tip, false);
     }
 
+    /**
+     * @return the tip of the first anchor view with this id, or null
+     */
     public View find(Integer key) {
-        if (mTipsMap.containsKey(key)) {
-            return mTipsMap.get(key);
-        }
-        return null;
+        return key != null ? getTipView(mTips.findById(key)) : null;
+    }
+
+    /**
+     * @return the most recent tip shown near the anchor view, or null
+     */
+    @Nullable
+    public View find(@NonNull View anchorView) {
+        return getTipView(mTips.find(anchorView));
     }
 
+    /**
+     * Dismiss all tips shown near the anchor view
+     */
     public boolean findAndDismiss(final View anchorView) {
-        View view = find(anchorView.getId());
-        return view != null && dismiss(view, false);
+        if (mTips.find(anchorView) == null) {
+            return false;
+        }
+        mTips.forEachOfAnchor(anchorView, mDismissVisitor);
+        return true;
     }
 
-    public void dismissAll() {
-        if (!mTipsMap.isEmpty()) {
-            List<Map.Entry<Integer, View>> entries = new ArrayList<>(mTipsMap.entrySet());
-            for (Map.Entry<Integer, View> entry : entries) {
-                dismiss(entry.getValue(), false);
-            }
+    /**
+     * @param tipView the view {@link #show(ToolTip)} returned for the tip
+     * @return true if the tip is still shown by that view
+     */
+    boolean isShown(View tipView, ToolTip toolTip) {
+        return findTip(tipView, toolTip) != null;
+    }
+
+    /**
+     * Dismiss exactly this tip, not the other tips of its anchor
+     *
+     * @param tipView the view {@link #show(ToolTip)} returned for the tip
+     */
+    boolean dismiss(View tipView, ToolTip toolTip) {
+        Object tip = findTip(tipView, toolTip);
+        if (tip == null) {
+            return false;
         }
-        mTipsMap.clear();
+        mDismissVisitor.visit(tip);
+        return true;
     }
 
-    private void animateDismiss(final View view, final boolean byUser) {
-        mToolTipAnimator.popout(view, mAnimationDuration, new AnimatorListenerAdapter() {
-            @Override
-            public void onAnimationEnd(Animator animation) {
-                super.onAnimationEnd(animation);
-                if (mListener != null){
-                    mListener.onTipDismissed(view, (Integer) view.getTag(), byUser);
+    /**
+     * Remove exactly this tip right away, without animation or notifying the listener
+     *
+     * @param tipView the view {@link #show(ToolTip)} returned for the tip
+     */
+    void removeTip(View tipView, ToolTip toolTip) {
+        Object tip = findTip(tipView, toolTip);
+        if (tip != null) {
+            mRemoveVisitor.visit(tip);
+        }
+    }
+
+    /**
+     * @return the registered tip shown by the view for the tool tip, or null. A tip view is
+     * reused once dismissed, so the tool tip it shows tells if it is still the same tip
+     */
+    @Nullable
+    private Object findTip(View tipView, ToolTip toolTip) {
+        if (tipView instanceof ToolTipOverlayView) {
+            for (ToolTipOverlayView.Tip tip : ((ToolTipOverlayView) tipView).getTips()) {
+                if (tip.getToolTip() == toolTip && mTips.contains(tip)) {
+                    return tip;
                 }
             }
-        }).start();
+            return null;
+        }
+        if (tipView instanceof ToolTipView && ((ToolTipView) tipView).getToolTip() == toolTip
+                && mTips.contains(tipView)) {
+            return tipView;
+        }
+        return null;
+    }
+
+    /**
+     * Dismiss all tips built with {@link ToolTip.Builder#setGroup(Object)} for this group
+     */
+    public void dismissGroup(@NonNull Object group) {
+        mTips.forEachInGroup(group, mDismissVisitor);
+    }
+
+    public boolean isGroupShown(@NonNull Object group) {
+        return mTips.groupSize(group) > 0;
+    }
+
+    /**
+     * Dismiss all tips. With the default animator a single animator takes them all out.
+     */
+    public void dismissAll() {
+        if (!(mToolTipAnimator instanceof DefaultToolTipAnimator)) {
+            mTips.forEach(mDismissVisitor);
+            return;
+        }
+
+        mTips.forEach(mBatchDismissVisitor);
+        if (mBatchDismissViews.isEmpty()) {
+            return;
+        }
+        final ArrayList<View> views = mBatchDismissViews;
+        final int[] anchorViewIds = mBatchDismissAnchorIds;
+        mBatchDismissViews = new ArrayList<>();
+        mBatchDismissAnchorIds = new int[0];
+
+        Animator popout = TipBatchAnimator.popout(views, mAnimationDuration, mStaggerDelay,
+                new AnimatorListenerAdapter() {
+                    @Override
+                    public void onAnimationEnd(Animator animation) {
+                        super.onAnimationEnd(animation);
+                        for (int i = 0; i < views.size(); i++) {
+                            onTipViewDismissed(views.get(i), anchorViewIds[i], false);
+                        }
+                    }
+                });
+        startBatchAnimation(popout, views, false);
+    }
+
+    private boolean dismissOverlay(ToolTipOverlayView overlay, boolean byUser) {
+        boolean dismissed = false;
+        for (ToolTipOverlayView.Tip tip : overlay.getTips()) {
+            dismissed |= dismissOverlayTip(tip, byUser);
+        }
+        return dismissed;
+    }
+
+    private boolean dismissOverlayTip(ToolTipOverlayView.Tip tip, boolean byUser) {
+        if (!mTips.contains(tip)) {
+            return false;
+        }
+        int anchorViewId = mTips.getAnchorId(tip);
+        removeTip(tip);
+        removeOverlayTip(tip);
+        markSeen(tip.getSeenKey());
+
+        if (mListener != null) {
+            mListener.onTipDismissed(tip.getHost(), anchorViewId, byUser);
+        }
+        return true;
+    }
+
+    private void removeOverlayTip(ToolTipOverlayView.Tip tip) {
+        ToolTipOverlayView overlay = tip.getHost();
+        overlay.removeTip(tip);
+        if (overlay.isEmpty()) {
+            // do not leave an empty overlay in the root
+            mOverlays.remove(overlay);
+            overlay.getRoot().removeView(overlay);
+        }
+    }
+
+    private void animateDismiss(final View view, final int anchorViewId, final boolean byUser) {
+        AnimatorListenerAdapter dismissListener = view instanceof ToolTipView ?
+                ((ToolTipView) view).getDismissListener() : null;
+        if (dismissListener instanceof DismissListener) {
+            ((DismissListener) dismissListener).set(anchorViewId, byUser);
+        } else {
+            dismissListener = new DismissListener(view).set(anchorViewId, byUser);
+        }
+        startAnimation(mToolTipAnimator.popout(view, mAnimationDuration, dismissListener), view, false);
+    }
+
+    /**
+     * Recycles a tip view once it is animated out. Kept on the view and reused,
+     * a view is dismissed once per show.
+     */
+    private final class DismissListener extends AnimatorListenerAdapter {
+
+        private final View mTipView;
+        private int mAnchorViewId;
+        private boolean mByUser;
+
+        DismissListener(View tipView) {
+            mTipView = tipView;
+        }
+
+        DismissListener set(int anchorViewId, boolean byUser) {
+            mAnchorViewId = anchorViewId;
+            mByUser = byUser;
+            return this;
+        }
+
+        @Override
+        public void onAnimationEnd(Animator animation) {
+            super.onAnimationEnd(animation);
+            onTipViewDismissed(mTipView, mAnchorViewId, mByUser);
+        }
+    }
+
+    private void onTipViewDismissed(View view, int anchorViewId, boolean byUser) {
+        if (mReleasing) {
+            recycleTipView(view);
+            return;
+        }
+        if (view instanceof ToolTipView) {
+            markSeen(((ToolTipView) view).getSeenKey());
+        }
+        if (mListener != null){
+            mListener.onTipDismissed(view, anchorViewId, byUser);
+        }
+        if (mTour != null) {
+            mTour.onTipDismissed(view, byUser);
+        }
+        recycleTipViewLater(view);
     }
 
     public boolean isVisible(View tipView) {
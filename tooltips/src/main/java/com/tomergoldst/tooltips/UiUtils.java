@@ -16,12 +16,35 @@ limitations under the License.
 
 package com.tomergoldst.tooltips;
 
+import android.os.Build;
+import android.view.View;
+
 import java.util.Locale;
 
 class UiUtils {
 
+    // direction of the last default locale seen, the locale changes with the configuration
+    private static Locale sCachedLocale;
+    private static boolean sCachedRtl;
+
     public static boolean isRtl() {
-        return isRtl(Locale.getDefault());
+        Locale locale = Locale.getDefault();
+        if (locale != sCachedLocale) {
+            sCachedRtl = isRtl(locale);
+            sCachedLocale = locale;
+        }
+        return sCachedRtl;
+    }
+
+    /**
+     * @return true if the view lays its children out right to left. Before API 17 views
+     * have no layout direction, the default locale decides.
+     */
+    static boolean isRtl(View view) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            return view.getLayoutDirection() == View.LAYOUT_DIRECTION_RTL;
+        }
+        return isRtl();
     }
 
     private static boolean isRtl(Locale locale) {
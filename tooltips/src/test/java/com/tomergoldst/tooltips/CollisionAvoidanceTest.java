@@ -0,0 +1,80 @@
+package com.tomergoldst.tooltips;
+
+import android.content.Context;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tips shown in the same frame over anchors at the same spot are moved apart before drawing
+ */
+@RunWith(RobolectricTestRunner.class)
+public class CollisionAvoidanceTest {
+
+    private Context mContext;
+    private CountingViews.Root mRoot;
+    private View mFirstAnchorView;
+    private View mSecondAnchorView;
+    private CountingViews.Manager mManager;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+        mRoot = new CountingViews.Root(mContext);
+        mFirstAnchorView = addAnchorView();
+        mSecondAnchorView = addAnchorView();
+        mRoot.frame();
+
+        mManager = new CountingViews.Manager();
+    }
+
+    @Test
+    public void overlapping_tip_moves_to_another_side() {
+        mManager.setAvoidCollisions(true);
+        ToolTip first = buildToolTip(mFirstAnchorView);
+        ToolTip second = buildToolTip(mSecondAnchorView);
+        View firstTipView = mManager.show(first);
+        View secondTipView = mManager.show(second);
+        mRoot.frame();
+
+        assertEquals(ToolTip.POSITION_ABOVE, first.getPosition());
+        assertEquals(ToolTip.POSITION_BELOW, second.getPosition());
+        assertTrue(firstTipView.getTranslationY() + firstTipView.getMeasuredHeight()
+                <= secondTipView.getTranslationY());
+    }
+
+    @Test
+    public void tips_overlap_by_default() {
+        ToolTip first = buildToolTip(mFirstAnchorView);
+        ToolTip second = buildToolTip(mSecondAnchorView);
+        View firstTipView = mManager.show(first);
+        View secondTipView = mManager.show(second);
+        mRoot.frame();
+
+        assertEquals(ToolTip.POSITION_ABOVE, second.getPosition());
+        assertEquals(firstTipView.getTranslationX(), secondTipView.getTranslationX(), 0);
+        assertEquals(firstTipView.getTranslationY(), secondTipView.getTranslationY(), 0);
+    }
+
+    private View addAnchorView() {
+        View anchorView = new View(mContext);
+        FrameLayout.LayoutParams params = new FrameLayout.LayoutParams(200, 100);
+        params.leftMargin = 440;
+        params.topMargin = 900;
+        mRoot.addView(anchorView, params);
+        return anchorView;
+    }
+
+    private ToolTip buildToolTip(View anchorView) {
+        return new ToolTip.Builder(mContext, anchorView, mRoot, "Tip", ToolTip.POSITION_ABOVE).build();
+    }
+}
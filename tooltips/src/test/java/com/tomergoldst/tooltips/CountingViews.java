@@ -0,0 +1,132 @@
+package com.tomergoldst.tooltips;
+
+import android.content.Context;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import java.util.ArrayList;
+
+/**
+ * Views and a manager which count the passes a tip costs. The root is not attached to a
+ * window, so nothing but {@link Root#frame()} measures or lays it out and counts are exact.
+ */
+final class CountingViews {
+
+    static final int ROOT_WIDTH = 1080;
+    static final int ROOT_HEIGHT = 1920;
+
+    private CountingViews() {
+    }
+
+    static final class Root extends FrameLayout {
+
+        int measures;
+        int layouts;
+        int addedViews;
+
+        Root(Context context) {
+            super(context);
+        }
+
+        /**
+         * Do what a frame does for the root: lay it out if it asked to be, then run the
+         * pre-draw listeners of the root and its tip hosts. A detached view has its own
+         * tree observer.
+         */
+        void frame() {
+            if (isLayoutRequested()) {
+                measure(MeasureSpec.makeMeasureSpec(ROOT_WIDTH, MeasureSpec.EXACTLY),
+                        MeasureSpec.makeMeasureSpec(ROOT_HEIGHT, MeasureSpec.EXACTLY));
+                layout(0, 0, ROOT_WIDTH, ROOT_HEIGHT);
+            }
+            getViewTreeObserver().dispatchOnPreDraw();
+            for (int i = 0; i < getChildCount(); i++) {
+                if (getChildAt(i) instanceof ToolTipHostLayout) {
+                    getChildAt(i).getViewTreeObserver().dispatchOnPreDraw();
+                }
+            }
+        }
+
+        void resetCounts() {
+            measures = 0;
+            layouts = 0;
+            addedViews = 0;
+        }
+
+        @Override
+        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+            measures++;
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        }
+
+        @Override
+        protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+            layouts++;
+            super.onLayout(changed, left, top, right, bottom);
+        }
+
+        @Override
+        public void addView(View child, int index, ViewGroup.LayoutParams params) {
+            addedViews++;
+            super.addView(child, index, params);
+        }
+    }
+
+    static final class TipView extends ToolTipView {
+
+        int measures;
+        int layouts;
+
+        TipView(Context context) {
+            super(context);
+        }
+
+        @Override
+        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+            measures++;
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        }
+
+        @Override
+        protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+            layouts++;
+            super.onLayout(changed, left, top, right, bottom);
+        }
+    }
+
+    static final class Manager extends ToolTipsManager {
+
+        final ArrayList<TipView> createdViews = new ArrayList<>();
+
+        @Override
+        ToolTipView newTipView(Context context) {
+            TipView tipView = new TipView(context);
+            createdViews.add(tipView);
+            return tipView;
+        }
+
+        int tipMeasures() {
+            int measures = 0;
+            for (TipView tipView : createdViews) {
+                measures += tipView.measures;
+            }
+            return measures;
+        }
+
+        int tipLayouts() {
+            int layouts = 0;
+            for (TipView tipView : createdViews) {
+                layouts += tipView.layouts;
+            }
+            return layouts;
+        }
+
+        void resetCounts() {
+            for (TipView tipView : createdViews) {
+                tipView.measures = 0;
+                tipView.layouts = 0;
+            }
+        }
+    }
+}
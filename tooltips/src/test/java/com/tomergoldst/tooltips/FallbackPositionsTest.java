@@ -0,0 +1,47 @@
+package com.tomergoldst.tooltips;
+
+import android.content.Context;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * Fallback positions are tried after the requested one, and are never automatic themselves
+ */
+@RunWith(RobolectricTestRunner.class)
+public class FallbackPositionsTest {
+
+    private ToolTip.Builder mBuilder;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        FrameLayout root = new FrameLayout(context);
+        View anchorView = new View(context);
+        root.addView(anchorView);
+        mBuilder = new ToolTip.Builder(context, anchorView, root, "Tip", ToolTip.POSITION_ABOVE);
+    }
+
+    @Test
+    public void fallbacks_follow_the_requested_position() {
+        ToolTip toolTip = mBuilder
+                .setFallbackPositions(ToolTip.POSITION_BELOW, ToolTip.POSITION_RIGHT_TO)
+                .build();
+
+        assertArrayEquals(new int[]{ToolTip.POSITION_ABOVE, ToolTip.POSITION_BELOW,
+                ToolTip.POSITION_RIGHT_TO}, toolTip.getCandidatePositions());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void auto_is_not_a_fallback() {
+        mBuilder.setFallbackPositions(ToolTip.POSITION_BELOW, ToolTip.POSITION_AUTO);
+    }
+}
@@ -0,0 +1,142 @@
+package com.tomergoldst.tooltips;
+
+import android.content.Context;
+import android.os.Looper;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * With an isolated layout the root is laid out once, for its tip host, and never again
+ * because of a tip. The host is removed once it has been empty for a while
+ */
+@RunWith(RobolectricTestRunner.class)
+public class IsolatedLayoutPassCountTest {
+
+    private Context mContext;
+    private CountingViews.Root mRoot;
+    private View mAnchorView;
+    private CountingViews.Manager mManager;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+        mRoot = new CountingViews.Root(mContext);
+        mAnchorView = new View(mContext);
+        FrameLayout.LayoutParams params = new FrameLayout.LayoutParams(200, 100);
+        params.leftMargin = 440;
+        params.topMargin = 900;
+        mRoot.addView(mAnchorView, params);
+        mRoot.frame();
+        mRoot.resetCounts();
+
+        mManager = new CountingViews.Manager();
+        mManager.setIsolatedLayout(true);
+    }
+
+    @Test
+    public void first_show_adds_the_host() {
+        mManager.show(buildToolTip());
+        mRoot.frame();
+
+        assertEquals(1, mRoot.addedViews);
+        assertEquals(1, mRoot.measures);
+        assertEquals(1, mRoot.layouts);
+        assertEquals(2, mManager.tipMeasures());
+        assertEquals(1, mManager.tipLayouts());
+    }
+
+    @Test
+    public void dismiss_and_show_again_do_not_lay_the_root_out() {
+        mManager.show(buildToolTip());
+        mRoot.frame();
+        finishAnimations();
+        mRoot.resetCounts();
+        mManager.resetCounts();
+
+        mManager.findAndDismiss(mAnchorView);
+        finishAnimations();
+        mRoot.frame();
+        mManager.show(buildToolTip());
+        mRoot.frame();
+
+        assertEquals(1, mManager.createdViews.size());
+        assertEquals(0, mRoot.addedViews);
+        assertEquals(0, mRoot.measures);
+        assertEquals(0, mRoot.layouts);
+        // measured to place it, then once by the host's layout
+        assertEquals(2, mManager.tipMeasures());
+        assertEquals(1, mManager.tipLayouts());
+    }
+
+    @Test
+    public void empty_host_is_removed_after_a_while() {
+        mManager.show(buildToolTip());
+        mRoot.frame();
+        finishAnimations();
+
+        mManager.findAndDismiss(mAnchorView);
+        finishAnimations();
+        assertTrue(hasHost());
+
+        shadowOf(Looper.getMainLooper()).idleFor(
+                Duration.ofMillis(ToolTipsManager.EMPTY_HOST_TIMEOUT_MS));
+        assertFalse(hasHost());
+    }
+
+    @Test
+    public void release_removes_the_host() {
+        mManager.show(buildToolTip());
+        mRoot.frame();
+
+        mManager.release();
+
+        assertFalse(hasHost());
+    }
+
+    @Test
+    public void host_is_removed_once_its_tips_go_after_isolated_layout_is_off() {
+        mManager.show(buildToolTip());
+        mRoot.frame();
+        finishAnimations();
+
+        mManager.setIsolatedLayout(false);
+        assertTrue(hasHost());
+        mManager.findAndDismiss(mAnchorView);
+        finishAnimations();
+        shadowOf(Looper.getMainLooper()).idleFor(
+                Duration.ofMillis(ToolTipsManager.EMPTY_HOST_TIMEOUT_MS));
+
+        assertFalse(hasHost());
+    }
+
+    private boolean hasHost() {
+        for (int i = 0; i < mRoot.getChildCount(); i++) {
+            if (mRoot.getChildAt(i) instanceof ToolTipHostLayout) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ToolTip buildToolTip() {
+        return new ToolTip.Builder(mContext, mAnchorView, mRoot, "Tip", ToolTip.POSITION_ABOVE).build();
+    }
+
+    private static void finishAnimations() {
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofSeconds(1));
+    }
+}
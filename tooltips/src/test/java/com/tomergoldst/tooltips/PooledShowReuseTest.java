@@ -0,0 +1,84 @@
+package com.tomergoldst.tooltips;
+
+import android.animation.AnimatorListenerAdapter;
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+import android.os.Looper;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Showing a pooled tip again reuses its view, background drawable and listeners instead of
+ * allocating new ones. Animators are still created per show by the {@link ToolTipAnimator}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class PooledShowReuseTest {
+
+    private static final int SHOWS = 10;
+
+    private Context mContext;
+    private CountingViews.Root mRoot;
+    private View mAnchorView;
+    private CountingViews.Manager mManager;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+        mRoot = new CountingViews.Root(mContext);
+        mAnchorView = new View(mContext);
+        FrameLayout.LayoutParams params = new FrameLayout.LayoutParams(200, 100);
+        params.leftMargin = 440;
+        params.topMargin = 900;
+        mRoot.addView(mAnchorView, params);
+        mRoot.frame();
+
+        mManager = new CountingViews.Manager();
+    }
+
+    @Test
+    public void repeated_shows_reuse_view_background_and_listeners() {
+        // warm up, the first show creates what later shows reuse
+        ToolTipView tipView = (ToolTipView) showAndDismiss();
+        Drawable background = tipView.getBackground();
+        AnimatorListenerAdapter dismissListener = tipView.getDismissListener();
+        assertTrue(background instanceof ToolTipDrawable);
+
+        for (int i = 0; i < SHOWS; i++) {
+            assertSame(tipView, showAndDismiss());
+            assertSame(background, tipView.getBackground());
+            assertSame(dismissListener, tipView.getDismissListener());
+        }
+        assertEquals(1, mManager.createdViews.size());
+    }
+
+    private View showAndDismiss() {
+        View tipView = mManager.show(buildToolTip());
+        mRoot.frame();
+        finishAnimations();
+        mManager.findAndDismiss(mAnchorView);
+        finishAnimations();
+        return tipView;
+    }
+
+    private ToolTip buildToolTip() {
+        return new ToolTip.Builder(mContext, mAnchorView, mRoot, "Tip", ToolTip.POSITION_ABOVE).build();
+    }
+
+    private static void finishAnimations() {
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofSeconds(1));
+    }
+}
@@ -0,0 +1,210 @@
+package com.tomergoldst.tooltips;
+
+import android.app.Activity;
+import android.os.Looper;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import java.time.Duration;
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Tips on list items follow their item through recycling, rebinding and flinging, and the
+ * helper only ever touches the tips it showed
+ */
+@RunWith(RobolectricTestRunner.class)
+public class RecyclerViewToolTipsTest {
+
+    private static final int ANCHOR_VIEW_ID = 1;
+    private static final int ITEM_COUNT = 50;
+    private static final int ITEM_HEIGHT = 200;
+
+    private Activity mActivity;
+    private FrameLayout mRoot;
+    private RecyclerView mRecyclerView;
+    private ItemAdapter mAdapter;
+    private ToolTipsManager mManager;
+    private RecyclerViewToolTips mListToolTips;
+
+    @Before
+    public void setUp() {
+        mActivity = Robolectric.buildActivity(Activity.class).setup().get();
+        mRoot = new FrameLayout(mActivity);
+        mRecyclerView = new RecyclerView(mActivity);
+        mRecyclerView.setLayoutManager(new LinearLayoutManager(mActivity));
+        mAdapter = new ItemAdapter();
+        mRecyclerView.setAdapter(mAdapter);
+        mRoot.addView(mRecyclerView, new FrameLayout.LayoutParams(1000, 5 * ITEM_HEIGHT));
+        mActivity.setContentView(mRoot);
+        settle();
+
+        mManager = new ToolTipsManager();
+        mManager.setMultipleTipsPerAnchor(true);
+        mListToolTips = new RecyclerViewToolTips(mRecyclerView, mManager);
+    }
+
+    @Test
+    public void tip_leaves_with_its_recycled_item_and_comes_back_with_it() {
+        mListToolTips.show(0, ANCHOR_VIEW_ID, buildToolTip());
+        assertNotNull(mManager.find(findAnchorView(0)));
+
+        scrollTo(ITEM_COUNT - 1);
+        assertNull(findAnchorView(0));
+        assertEquals(0, countTipViews());
+
+        scrollTo(0);
+        assertNotNull(mManager.find(findAnchorView(0)));
+        assertEquals(1, countTipViews());
+    }
+
+    @Test
+    public void tip_leaves_an_item_view_rebound_to_another_item() {
+        mListToolTips.show(0, ANCHOR_VIEW_ID, buildToolTip());
+        View anchorView = findAnchorView(0);
+
+        // item 0 moves off screen, the view it was bound to shows another item
+        mAdapter.move(0, ITEM_COUNT - 1);
+        settle();
+
+        assertNull(mManager.find(anchorView));
+        assertEquals(0, countTipViews());
+
+        scrollTo(ITEM_COUNT - 1);
+        assertNotNull(mManager.find(findAnchorView(0)));
+    }
+
+    @Test
+    public void tip_dismissed_while_off_screen_does_not_come_back() {
+        mListToolTips.show(0, ANCHOR_VIEW_ID, buildToolTip());
+        scrollTo(ITEM_COUNT - 1);
+
+        assertTrue(mListToolTips.dismiss(0, ANCHOR_VIEW_ID));
+        scrollTo(0);
+
+        assertNull(mManager.find(findAnchorView(0)));
+        assertEquals(0, countTipViews());
+    }
+
+    @Test
+    public void other_tips_of_the_anchor_are_left_alone() {
+        mListToolTips.show(0, ANCHOR_VIEW_ID, buildToolTip());
+        View appTipView = mManager.show(new ToolTip.Builder(mActivity, findAnchorView(0), mRoot,
+                "App tip", ToolTip.POSITION_BELOW).build());
+
+        assertTrue(mListToolTips.dismiss(0, ANCHOR_VIEW_ID));
+        settle();
+
+        assertSame(appTipView, mManager.find(findAnchorView(0)));
+        assertEquals(1, countTipViews());
+    }
+
+    @Test
+    public void tip_shown_while_flinging_waits_for_the_list_to_settle() {
+        assertTrue(mRecyclerView.fling(0, 5000));
+        assertEquals(RecyclerView.SCROLL_STATE_SETTLING, mRecyclerView.getScrollState());
+
+        mListToolTips.show(0, ANCHOR_VIEW_ID, buildToolTip());
+        assertEquals(0, countTipViews());
+
+        mRecyclerView.stopScroll();
+        // where the fling stopped, the first item is still on screen
+        mRecyclerView.scrollToPosition(0);
+        settle();
+
+        assertNotNull(mManager.find(findAnchorView(0)));
+    }
+
+    private ToolTip buildToolTip() {
+        // the anchor view is replaced by the bound item's view
+        return new ToolTip.Builder(mActivity, mRecyclerView, mRoot, "Tip", ToolTip.POSITION_BELOW).build();
+    }
+
+    private View findAnchorView(long itemId) {
+        RecyclerView.ViewHolder holder = mRecyclerView.findViewHolderForItemId(itemId);
+        return holder != null ? holder.itemView.findViewById(ANCHOR_VIEW_ID) : null;
+    }
+
+    private int countTipViews() {
+        int count = 0;
+        for (int i = 0; i < mRoot.getChildCount(); i++) {
+            if (mRoot.getChildAt(i) instanceof ToolTipView) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void scrollTo(int position) {
+        mRecyclerView.scrollToPosition(position);
+        settle();
+    }
+
+    /**
+     * Lay the list out, run the posted syncs and end the tip animations
+     */
+    private static void settle() {
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofSeconds(1));
+    }
+
+    private static final class ItemAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+        private final ArrayList<Long> mItemIds = new ArrayList<>();
+
+        ItemAdapter() {
+            for (long i = 0; i < ITEM_COUNT; i++) {
+                mItemIds.add(i);
+            }
+            setHasStableIds(true);
+        }
+
+        void move(int fromPosition, int toPosition) {
+            mItemIds.add(toPosition, mItemIds.remove(fromPosition));
+            notifyItemMoved(fromPosition, toPosition);
+        }
+
+        @NonNull
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            FrameLayout itemView = new FrameLayout(parent.getContext());
+            itemView.setLayoutParams(new RecyclerView.LayoutParams(
+                    ViewGroup.LayoutParams.MATCH_PARENT, ITEM_HEIGHT));
+            View anchorView = new View(parent.getContext());
+            anchorView.setId(ANCHOR_VIEW_ID);
+            itemView.addView(anchorView, new FrameLayout.LayoutParams(100, 100));
+            return new RecyclerView.ViewHolder(itemView) {
+            };
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return mItemIds.get(position);
+        }
+
+        @Override
+        public int getItemCount() {
+            return mItemIds.size();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.tomergoldst.tooltips;
+
+import android.app.Activity;
+import android.os.Looper;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * A root which leaves its window takes its tips and pooled tip views with it
+ */
+@RunWith(RobolectricTestRunner.class)
+public class RootDetachTest {
+
+    private Activity mActivity;
+    private FrameLayout mRoot;
+    private View mAnchorView;
+    private ToolTipsManager mManager;
+
+    @Before
+    public void setUp() {
+        mActivity = Robolectric.buildActivity(Activity.class).setup().get();
+        mRoot = new FrameLayout(mActivity);
+        mAnchorView = new View(mActivity);
+        mRoot.addView(mAnchorView, new FrameLayout.LayoutParams(200, 100));
+        mActivity.setContentView(mRoot);
+
+        mManager = new ToolTipsManager();
+        mManager.setMultipleTipsPerAnchor(true);
+    }
+
+    @Test
+    public void detached_root_leaves_no_pooled_views() {
+        View dismissedTipView = mManager.show(buildToolTip());
+        View shownTipView = mManager.show(buildToolTip());
+        mManager.dismiss(dismissedTipView, false);
+        finishAnimations();
+        assertTrue(mManager.hasPooledViews(mActivity));
+
+        mActivity.setContentView(new FrameLayout(mActivity));
+
+        assertFalse(mManager.hasPooledViews(mActivity));
+        assertNull(shownTipView.getParent());
+    }
+
+    private ToolTip buildToolTip() {
+        return new ToolTip.Builder(mActivity, mAnchorView, mRoot, "Tip", ToolTip.POSITION_BELOW).build();
+    }
+
+    private static void finishAnimations() {
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofSeconds(1));
+    }
+}
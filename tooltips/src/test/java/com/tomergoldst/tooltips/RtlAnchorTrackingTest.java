@@ -0,0 +1,77 @@
+package com.tomergoldst.tooltips;
+
+import android.app.Activity;
+import android.os.Looper;
+import android.view.Gravity;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * A tip which tracks its anchor in a right-to-left root ends up where it would be placed
+ * next to the moved anchor
+ */
+@RunWith(RobolectricTestRunner.class)
+public class RtlAnchorTrackingTest {
+
+    private Activity mActivity;
+    private FrameLayout mRoot;
+    private View mAnchorView;
+    private ToolTipsManager mManager;
+
+    @Before
+    public void setUp() {
+        mActivity = Robolectric.buildActivity(Activity.class).setup().get();
+        mRoot = new FrameLayout(mActivity) {
+            @Override
+            public int getLayoutDirection() {
+                return LAYOUT_DIRECTION_RTL;
+            }
+        };
+        mAnchorView = new View(mActivity);
+        FrameLayout.LayoutParams params = new FrameLayout.LayoutParams(200, 100,
+                Gravity.TOP | Gravity.LEFT);
+        params.leftMargin = 300;
+        params.topMargin = 300;
+        mRoot.addView(mAnchorView, params);
+        mActivity.setContentView(mRoot);
+        // lays the root out
+        shadowOf(Looper.getMainLooper()).idle();
+
+        mManager = new ToolTipsManager();
+        mManager.setMultipleTipsPerAnchor(true);
+    }
+
+    @Test
+    public void tracked_tip_follows_its_anchor() {
+        View trackedTipView = mManager.show(buildToolTip(true));
+
+        mAnchorView.setTranslationX(50);
+        frame();
+        View placedTipView = mManager.show(buildToolTip(false));
+
+        assertEquals(placedTipView.getTranslationX(), trackedTipView.getTranslationX(), 0);
+        assertEquals(placedTipView.getTranslationY(), trackedTipView.getTranslationY(), 0);
+    }
+
+    private ToolTip buildToolTip(boolean trackAnchor) {
+        return new ToolTip.Builder(mActivity, mAnchorView, mRoot, "Tip", ToolTip.POSITION_BELOW)
+                .setTrackAnchor(trackAnchor)
+                .build();
+    }
+
+    /**
+     * Run the pre-draw listeners of the root as the next frame does, the anchor tracker's too
+     */
+    private void frame() {
+        mRoot.getViewTreeObserver().dispatchOnPreDraw();
+    }
+}
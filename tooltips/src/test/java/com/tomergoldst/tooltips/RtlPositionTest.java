@@ -0,0 +1,80 @@
+package com.tomergoldst.tooltips;
+
+import android.content.Context;
+import android.view.Gravity;
+import android.view.View;
+import android.widget.FrameLayout;
+import android.widget.TextView;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Sides are swapped for a right-to-left root on every show of a tip, not flipped back
+ * when the same tip is prepared again, e.g. by a tour. The arrow points at the anchor of a
+ * tip pushed back into the root as it does left-to-right
+ */
+@RunWith(RobolectricTestRunner.class)
+public class RtlPositionTest {
+
+    private Context mContext;
+    private FrameLayout mRoot;
+    private View mAnchorView;
+    private ToolTipsManager mManager;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+        mRoot = new FrameLayout(mContext) {
+            @Override
+            public int getLayoutDirection() {
+                return LAYOUT_DIRECTION_RTL;
+            }
+        };
+        mAnchorView = new View(mContext);
+        mRoot.addView(mAnchorView, new FrameLayout.LayoutParams(200, 100));
+        mManager = new ToolTipsManager();
+    }
+
+    @Test
+    public void prepared_again_keeps_the_swapped_side() {
+        ToolTip toolTip = new ToolTip.Builder(mContext, mAnchorView, mRoot, "Tip",
+                ToolTip.POSITION_LEFT_TO).build();
+
+        TextView tipView = mManager.preparePlacedTipView(toolTip);
+        assertEquals(ToolTip.POSITION_RIGHT_TO, toolTip.getPosition());
+        mManager.discardPlacedTipView(tipView);
+
+        mManager.preparePlacedTipView(toolTip);
+        assertEquals(ToolTip.POSITION_RIGHT_TO, toolTip.getPosition());
+    }
+
+    @Test
+    public void clamped_tip_points_its_arrow_at_the_anchor() {
+        // the anchor at the root's left edge, so a tip centered on it does not fit there
+        FrameLayout.LayoutParams params = (FrameLayout.LayoutParams) mAnchorView.getLayoutParams();
+        params.gravity = Gravity.TOP | Gravity.LEFT;
+        layOut();
+
+        View tipView = mManager.show(new ToolTip.Builder(mContext, mAnchorView, mRoot,
+                "A tip message wider than its anchor", ToolTip.POSITION_BELOW).build());
+        layOut();
+
+        ToolTipDrawable background = (ToolTipDrawable) tipView.getBackground();
+        int tipLeft = tipView.getLeft() + (int) tipView.getTranslationX();
+        assertEquals(mAnchorView.getLeft(), tipLeft + background.getArrowAnchorStart());
+        assertEquals(mAnchorView.getRight(), tipLeft + background.getArrowAnchorEnd());
+    }
+
+    private void layOut() {
+        mRoot.measure(View.MeasureSpec.makeMeasureSpec(1080, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(1920, View.MeasureSpec.EXACTLY));
+        mRoot.layout(0, 0, 1080, 1920);
+    }
+}
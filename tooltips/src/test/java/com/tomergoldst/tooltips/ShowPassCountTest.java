@@ -0,0 +1,164 @@
+package com.tomergoldst.tooltips;
+
+import android.content.Context;
+import android.os.Looper;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.ParameterizedRobolectricTestRunner;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Passes one show and one dismiss cost, for every position and alignment, with a tip that
+ * fits and one narrowed to the root. A change adding a measure, layout or view to the
+ * hot path fails here.
+ */
+@RunWith(ParameterizedRobolectricTestRunner.class)
+public class ShowPassCountTest {
+
+    // measured once to place it, before the root lays it out, then once by the root's
+    // layout pass
+    private static final int TIP_MEASURES = 2;
+    // measured once more at the width it is narrowed to
+    private static final int CLAMPED_TIP_MEASURES = TIP_MEASURES + 1;
+
+    @ParameterizedRobolectricTestRunner.Parameters(name = "position={0} align={1} clamped={2}")
+    public static List<Object[]> parameters() {
+        List<Object[]> parameters = new ArrayList<>();
+        for (int position : Arrays.asList(ToolTip.POSITION_ABOVE, ToolTip.POSITION_BELOW,
+                ToolTip.POSITION_LEFT_TO, ToolTip.POSITION_RIGHT_TO)) {
+            for (int align : Arrays.asList(ToolTip.ALIGN_CENTER, ToolTip.ALIGN_LEFT, ToolTip.ALIGN_RIGHT)) {
+                parameters.add(new Object[]{position, align, false});
+                parameters.add(new Object[]{position, align, true});
+            }
+        }
+        return parameters;
+    }
+
+    private final int mPosition;
+    private final int mAlign;
+    private final boolean mClamped;
+
+    private Context mContext;
+    private CountingViews.Root mRoot;
+    private View mAnchorView;
+    private CountingViews.Manager mManager;
+
+    public ShowPassCountTest(int position, int align, boolean clamped) {
+        mPosition = position;
+        mAlign = align;
+        mClamped = clamped;
+    }
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+        mRoot = new CountingViews.Root(mContext);
+        mAnchorView = new View(mContext);
+        // in the middle, so only a tip wider than the root is narrowed
+        FrameLayout.LayoutParams params = new FrameLayout.LayoutParams(200, 100);
+        params.leftMargin = (CountingViews.ROOT_WIDTH - 200) / 2;
+        params.topMargin = (CountingViews.ROOT_HEIGHT - 100) / 2;
+        mRoot.addView(mAnchorView, params);
+        mRoot.frame();
+        mRoot.resetCounts();
+
+        mManager = new CountingViews.Manager();
+    }
+
+    @Test
+    public void show() {
+        mManager.show(buildToolTip());
+        mRoot.frame();
+
+        assertEquals(1, mManager.createdViews.size());
+        assertEquals(1, mRoot.addedViews);
+        assertEquals(1, mRoot.measures);
+        assertEquals(1, mRoot.layouts);
+        assertEquals(expectedTipMeasures(), mManager.tipMeasures());
+        assertEquals(1, mManager.tipLayouts());
+    }
+
+    @Test
+    public void dismiss() {
+        showAndSettle();
+        resetCounts();
+
+        mManager.findAndDismiss(mAnchorView);
+        finishAnimations();
+        mRoot.frame();
+
+        assertEquals(1, mManager.createdViews.size());
+        assertEquals(0, mRoot.addedViews);
+        assertEquals(1, mRoot.measures);
+        assertEquals(1, mRoot.layouts);
+        assertEquals(0, mManager.tipMeasures());
+        assertEquals(0, mManager.tipLayouts());
+    }
+
+    @Test
+    public void show_again_reuses_the_dismissed_view() {
+        showAndSettle();
+        mManager.findAndDismiss(mAnchorView);
+        finishAnimations();
+        mRoot.frame();
+        resetCounts();
+
+        mManager.show(buildToolTip());
+        mRoot.frame();
+
+        assertEquals(1, mManager.createdViews.size());
+        assertEquals(1, mRoot.addedViews);
+        assertEquals(1, mRoot.measures);
+        assertEquals(1, mRoot.layouts);
+        assertEquals(expectedTipMeasures(), mManager.tipMeasures());
+        assertEquals(1, mManager.tipLayouts());
+    }
+
+    private ToolTip buildToolTip() {
+        return new ToolTip.Builder(mContext, mAnchorView, mRoot, message(), mPosition)
+                .setAlign(mAlign)
+                .build();
+    }
+
+    private CharSequence message() {
+        if (!mClamped) {
+            return "Tip";
+        }
+        // a single line wider than the root, whatever the text is measured with
+        char[] message = new char[CountingViews.ROOT_WIDTH * 2];
+        Arrays.fill(message, 'x');
+        return new String(message);
+    }
+
+    private int expectedTipMeasures() {
+        return mClamped ? CLAMPED_TIP_MEASURES : TIP_MEASURES;
+    }
+
+    private void showAndSettle() {
+        mManager.show(buildToolTip());
+        mRoot.frame();
+        finishAnimations();
+    }
+
+    private void resetCounts() {
+        mRoot.resetCounts();
+        mManager.resetCounts();
+    }
+
+    private static void finishAnimations() {
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofSeconds(1));
+    }
+}
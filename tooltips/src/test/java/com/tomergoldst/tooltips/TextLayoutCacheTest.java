@@ -0,0 +1,115 @@
+package com.tomergoldst.tooltips;
+
+import android.content.Context;
+import android.text.Layout;
+import android.text.SpannableString;
+import android.text.Spanned;
+import android.text.TextPaint;
+import android.text.method.LinkMovementMethod;
+import android.text.style.StyleSpan;
+import android.view.Gravity;
+import android.view.View;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricTestRunner.class)
+public class TextLayoutCacheTest {
+
+    private TextPaint mPaint;
+
+    @Before
+    public void setUp() {
+        TextLayoutCache.clear();
+        mPaint = new TextPaint();
+        mPaint.setTextSize(40);
+    }
+
+    @Test
+    public void same_message_reuses_the_layout() {
+        assertSame(obtain("Tip"), obtain(new StringBuilder("Tip")));
+    }
+
+    @Test
+    public void text_with_spans_is_not_cached() {
+        SpannableString text = new SpannableString("Tip");
+        text.setSpan(new StyleSpan(0), 0, text.length(), Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+
+        assertNotSame(obtain(text), obtain(text));
+    }
+
+    @Test
+    public void letter_spacing_is_part_of_the_key() {
+        TextPaint spacedPaint = new TextPaint(mPaint);
+        spacedPaint.setLetterSpacing(0.1f);
+
+        assertNotSame(obtain("Tip"), TextLayoutCache.obtain("Tip", spacedPaint, 0, null,
+                Gravity.START, 0, 0, TextLayoutCache.UNBOUNDED, false));
+    }
+
+    @Test
+    public void break_strategy_and_hyphenation_are_part_of_the_key() {
+        assertNotSame(obtain("Tip"), TextLayoutCache.obtain("Tip", mPaint, 0, null,
+                Gravity.START, Layout.BREAK_STRATEGY_HIGH_QUALITY, 0, TextLayoutCache.UNBOUNDED, false));
+        assertNotSame(obtain("Tip"), TextLayoutCache.obtain("Tip", mPaint, 0, null,
+                Gravity.START, 0, Layout.HYPHENATION_FREQUENCY_NORMAL, TextLayoutCache.UNBOUNDED, false));
+    }
+
+    @Test
+    public void cached_layout_answers_for_the_view() {
+        Context context = ApplicationProvider.getApplicationContext();
+        ToolTipView tipView = new ToolTipView(context);
+        tipView.setText("A tip message");
+        measure(tipView);
+
+        // TextView does not lay the text out when the cached layout is used
+        assertNull(tipView.getLayout());
+        assertNotNull(tipView.getTextLayout());
+        assertEquals(1, tipView.getLineCount());
+        assertEquals(tipView.getTextLayout().getLineBaseline(0) + tipView.getCompoundPaddingTop(),
+                tipView.getBaseline());
+    }
+
+    @Test
+    public void links_are_measured_by_text_view() {
+        Context context = ApplicationProvider.getApplicationContext();
+        ToolTipView tipView = new ToolTipView(context);
+        tipView.setMovementMethod(LinkMovementMethod.getInstance());
+        tipView.setText("A tip message");
+        measure(tipView);
+
+        assertNotNull(tipView.getLayout());
+        assertSame(tipView.getLayout(), tipView.getTextLayout());
+    }
+
+    @Test
+    public void line_limits_are_measured_by_text_view() {
+        Context context = ApplicationProvider.getApplicationContext();
+        ToolTipView tipView = new ToolTipView(context);
+        tipView.setMaxLines(1);
+        tipView.setText("A tip message");
+        measure(tipView);
+
+        assertSame(tipView.getLayout(), tipView.getTextLayout());
+    }
+
+    private static void measure(View view) {
+        view.measure(View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED),
+                View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+    }
+
+    private Layout obtain(CharSequence text) {
+        return TextLayoutCache.obtain(text, mPaint, 0, null, Gravity.START, 0, 0,
+                TextLayoutCache.UNBOUNDED, false);
+    }
+}